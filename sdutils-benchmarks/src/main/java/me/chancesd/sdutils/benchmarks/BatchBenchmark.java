@@ -0,0 +1,93 @@
+package me.chancesd.sdutils.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import me.chancesd.sdutils.database.BatchResult;
+import me.chancesd.sdutils.database.Column;
+import me.chancesd.sdutils.database.ColumnType;
+import me.chancesd.sdutils.database.Table;
+
+/**
+ * Batch inserts and updates of a fixed amount of rows per operation, split in chunks of {@code batchSize} rows
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BatchBenchmark {
+
+	private static final List<String> EVENT_COLUMNS = Arrays.asList("uuid", "amount", "created");
+	private static final int PLAYERS = 100000;
+
+	@Param({ "100", "1000", "5000" })
+	private int batchSize;
+	@Param({ "1000", "10000" })
+	private int rowsPerOperation;
+	private BenchmarkDatabase database;
+	private Table events;
+	private List<Collection<Object>> inserts;
+	private Map<Object, Collection<Object>> updates;
+
+	@Setup
+	public void setup() throws IOException {
+		database = new BenchmarkDatabase(PLAYERS, batchSize);
+		events = new Table("events",
+				Column.of("id", ColumnType.INTEGER).autoIncrement(),
+				Column.of("uuid", ColumnType.VARCHAR).length(36).notNull(),
+				Column.of("amount", ColumnType.INTEGER).notNull(),
+				Column.of("created", ColumnType.BIGINT).notNull());
+		database.getDatabase().registerTable(events);
+	}
+
+	@Setup(Level.Iteration)
+	public void prepareRows() {
+		// rows are built up front so the benchmark only measures the database
+		final SplittableRandom random = new SplittableRandom(42);
+		inserts = new ArrayList<>(rowsPerOperation);
+		updates = new LinkedHashMap<>(rowsPerOperation * 2);
+		for (int i = 0; i < rowsPerOperation; i++) {
+			final String key = BenchmarkDatabase.key(random.nextInt(PLAYERS));
+			inserts.add(Arrays.asList(key, random.nextInt(100), System.currentTimeMillis()));
+			updates.put(key, Arrays.asList(random.nextInt(1000), random.nextInt(100)));
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		database.close();
+	}
+
+	@Benchmark
+	public BatchResult insertColumnsBatch() {
+		return database.getDatabase().insertColumnsBatch(events, EVENT_COLUMNS, inserts);
+	}
+
+	@Benchmark
+	public BatchResult updateValuesBatch() {
+		return database.getDatabase().updateValuesBatch(database.getPlayers(), "uuid", Arrays.asList("kills", "deaths"), updates);
+	}
+}
@@ -0,0 +1,157 @@
+package me.chancesd.sdutils.benchmarks;
+
+import static org.mockito.Mockito.RETURNS_MOCKS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import me.chancesd.sdutils.database.Column;
+import me.chancesd.sdutils.database.ColumnType;
+import me.chancesd.sdutils.database.Database;
+import me.chancesd.sdutils.database.DatabaseConfigBuilder;
+import me.chancesd.sdutils.database.DatabaseFactory;
+import me.chancesd.sdutils.database.RowMapper;
+import me.chancesd.sdutils.database.Table;
+import me.chancesd.sdutils.scheduler.ScheduleUtils;
+import me.chancesd.sdutils.utils.Log;
+
+/**
+ * Temporary SQLite database for the benchmarks, in a fresh directory deleted on {@link #close()}.
+ * The server and plugin are mocked, so the benchmarks run without a server.
+ * <p>
+ * Player keys are generated from their index, so every run reads and writes the same rows.
+ */
+public class BenchmarkDatabase {
+
+	public static final List<String> PLAYER_COLUMNS = Arrays.asList("uuid", "name", "kills", "deaths");
+	private static final int POPULATE_BATCH = 5000;
+
+	static {
+		// an empty bukkit version makes MCVersion assume a recent server
+		Bukkit.setServer(mock(Server.class, RETURNS_MOCKS));
+		Log.setup(Logger.getLogger("SDUtils Benchmarks"), "[Benchmarks]");
+		ScheduleUtils.setExecutor(Executors.newScheduledThreadPool(2, runnable -> {
+			final Thread thread = new Thread(runnable, "Benchmark Scheduler");
+			thread.setDaemon(true);
+			return thread;
+		}));
+	}
+
+	private final File directory;
+	private final Database database;
+	private final Table players;
+	private final int rows;
+
+	/**
+	 * @param rows      Amount of players to insert
+	 * @param batchSize Rows per executed batch chunk, see {@link DatabaseConfigBuilder#batchSize(int)}
+	 * @throws IOException if the temporary directory can't be created
+	 */
+	public BenchmarkDatabase(final int rows, final int batchSize) throws IOException {
+		this.directory = Files.createTempDirectory("sdutils-benchmark").toFile();
+		this.rows = rows;
+		final JavaPlugin plugin = mock(JavaPlugin.class);
+		when(plugin.getName()).thenReturn("Benchmark");
+		this.database = new DatabaseFactory(plugin)
+				.getDatabase(new DatabaseConfigBuilder(new File(directory, "database.db")).batchSize(batchSize));
+		this.players = new Table("players",
+				Column.of("uuid", ColumnType.VARCHAR).length(36).primaryKey(),
+				Column.of("name", ColumnType.VARCHAR).length(16).notNull(),
+				Column.of("kills", ColumnType.INTEGER).notNull().defaultValue("0"),
+				Column.of("deaths", ColumnType.INTEGER).notNull().defaultValue("0"))
+				.index("kills")
+				.registerMapper(PlayerStats.class, RowMapper.prepared(view -> {
+					final int uuid = view.indexOf("uuid");
+					final int name = view.indexOf("name");
+					final int kills = view.indexOf("kills");
+					final int deaths = view.indexOf("deaths");
+					return row -> new PlayerStats(row.getString(uuid), row.getString(name), row.getInt(kills), row.getInt(deaths));
+				}));
+		database.registerTable(players);
+		final List<Collection<Object>> batch = new ArrayList<>(POPULATE_BATCH);
+		for (int i = 0; i < rows; i++) {
+			batch.add(Arrays.asList(key(i), "Player" + i, i % 1000, i % 100));
+			if (batch.size() == POPULATE_BATCH || i == rows - 1) {
+				database.insertColumnsBatch(players, PLAYER_COLUMNS, batch);
+				batch.clear();
+			}
+		}
+	}
+
+	/**
+	 * @param index Index of the player
+	 * @return Key of the player at that index
+	 */
+	public static String key(final int index) {
+		return new UUID(0, index).toString();
+	}
+
+	public Database getDatabase() {
+		return database;
+	}
+
+	public Table getPlayers() {
+		return players;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public void close() throws IOException {
+		database.close();
+		try (Stream<Path> files = Files.walk(directory.toPath())) {
+			files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	/**
+	 * Typed player row, to measure mapped reads
+	 */
+	public static class PlayerStats {
+		private final String uuid;
+		private final String name;
+		private final int kills;
+		private final int deaths;
+
+		PlayerStats(final String uuid, final String name, final int kills, final int deaths) {
+			this.uuid = uuid;
+			this.name = name;
+			this.kills = kills;
+			this.deaths = deaths;
+		}
+
+		public String getUuid() {
+			return uuid;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getKills() {
+			return kills;
+		}
+
+		public int getDeaths() {
+			return deaths;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package me.chancesd.sdutils.benchmarks;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Concurrent writers competing for the single SQLite write connection, alone and next to readers.
+ * The amount of writers can be changed with the {@code -t} option of JMH for the writes benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ContentionBenchmark {
+
+	private static final int ROWS = 100000;
+	private BenchmarkDatabase database;
+
+	@State(Scope.Thread)
+	public static class Keys {
+		private static final AtomicInteger SEEDS = new AtomicInteger();
+		// one fixed seed per thread, so threads don't all hit the same rows
+		private final SplittableRandom random = new SplittableRandom(SEEDS.incrementAndGet());
+
+		String next() {
+			return BenchmarkDatabase.key(random.nextInt(ROWS));
+		}
+	}
+
+	@Setup
+	public void setup() throws IOException {
+		database = new BenchmarkDatabase(ROWS, 1000);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		database.close();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public void writes(final Keys keys) {
+		database.getDatabase().update(database.getPlayers(), "uuid", "kills", keys.next(), keys.random.nextInt(1000));
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(4)
+	public void mixedWrite(final Keys keys) {
+		database.getDatabase().update(database.getPlayers(), "uuid", "kills", keys.next(), keys.random.nextInt(1000));
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(4)
+	public Map<String, Object> mixedRead(final Keys keys) {
+		return database.getDatabase().getRow(database.getPlayers(), "uuid", keys.next());
+	}
+}
@@ -0,0 +1,63 @@
+package me.chancesd.sdutils.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import me.chancesd.sdutils.benchmarks.BenchmarkDatabase.PlayerStats;
+
+/**
+ * Full table scans, comparing rows mapped to maps, to objects and streamed without collecting them
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ScanBenchmark {
+
+	@Param({ "10000", "100000" })
+	private int rows;
+	private BenchmarkDatabase database;
+
+	@Setup
+	public void setup() throws IOException {
+		database = new BenchmarkDatabase(rows, 1000);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		database.close();
+	}
+
+	@Benchmark
+	public List<Map<String, Object>> getAllRows() {
+		return database.getDatabase().getAllRows(database.getPlayers());
+	}
+
+	@Benchmark
+	public List<PlayerStats> getAllRowsMapped() {
+		return database.getDatabase().getAllRows(database.getPlayers(), PlayerStats.class);
+	}
+
+	@Benchmark
+	public void forEachRow(final Blackhole blackhole) {
+		database.getDatabase().forEachRow(database.getPlayers(), 1000, row -> blackhole.consume(row.getInt("kills")));
+	}
+}
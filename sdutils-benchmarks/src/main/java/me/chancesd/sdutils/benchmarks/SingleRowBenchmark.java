@@ -0,0 +1,79 @@
+package me.chancesd.sdutils.benchmarks;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import me.chancesd.sdutils.benchmarks.BenchmarkDatabase.PlayerStats;
+
+/**
+ * Reads and writes of a single row by its primary key
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SingleRowBenchmark {
+
+	@Param({ "10000", "100000" })
+	private int rows;
+	private BenchmarkDatabase database;
+
+	@State(Scope.Thread)
+	public static class Keys {
+		// fixed seed, every run touches the same rows in the same order
+		private final SplittableRandom random = new SplittableRandom(42);
+
+		String next(final int rows) {
+			return BenchmarkDatabase.key(random.nextInt(rows));
+		}
+	}
+
+	@Setup
+	public void setup() throws IOException {
+		database = new BenchmarkDatabase(rows, 1000);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		database.close();
+	}
+
+	@Benchmark
+	public Map<String, Object> getRow(final Keys keys) {
+		return database.getDatabase().getRow(database.getPlayers(), "uuid", keys.next(rows));
+	}
+
+	@Benchmark
+	public PlayerStats getRowMapped(final Keys keys) {
+		return database.getDatabase().getRow(database.getPlayers(), "uuid", keys.next(rows), PlayerStats.class);
+	}
+
+	@Benchmark
+	public void update(final Keys keys) {
+		database.getDatabase().update(database.getPlayers(), "uuid", "kills", keys.next(rows), keys.random.nextInt(1000));
+	}
+
+	@Benchmark
+	public boolean updateValues(final Keys keys) {
+		return database.getDatabase().updateValues(database.getPlayers(), "uuid", keys.next(rows), Arrays.asList("kills", "deaths"),
+				Arrays.asList(keys.random.nextInt(1000), keys.random.nextInt(100)));
+	}
+}
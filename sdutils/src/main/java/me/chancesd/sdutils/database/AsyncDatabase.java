@@ -0,0 +1,244 @@
+package me.chancesd.sdutils.database;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Asynchronous view of a {@link Database}.
+ * <p>
+ * Every method mirrors its blocking counterpart in {@link Database} but runs on the database executor,
+ * which is bounded to the size of the connection pool. Failures are logged the same way as the blocking
+ * methods, so the futures complete with the same fallback values (null, false, 0, empty collections).
+ * <p>
+ * To get back on the main thread use {@link me.chancesd.sdutils.scheduler.ScheduleUtils#thenAcceptSync} or
+ * {@link me.chancesd.sdutils.scheduler.ScheduleUtils#thenRunSync}:
+ *
+ * <pre>
+ * ScheduleUtils.thenAcceptSync(database.async().getRow(table, "uuid", uuid), row -&gt; player.sendMessage(...));
+ * </pre>
+ */
+public class AsyncDatabase {
+
+	private final Database database;
+
+	AsyncDatabase(final Database database) {
+		this.database = database;
+	}
+
+	/**
+	 * @see Database#insertDefault(Table, Object...)
+	 */
+	public CompletableFuture<Void> insertDefault(final Table table, final Object... values) {
+		return database.runAsync(() -> database.insertDefault(table, values));
+	}
+
+	/**
+	 * @see Database#insertColumns(Table, Collection, Collection)
+	 */
+	public CompletableFuture<Boolean> insertColumns(final Table table, final Collection<String> columns, final Collection<Object> values) {
+		return database.supplyAsync(() -> database.insertColumns(table, columns, values));
+	}
+
+	/**
+	 * @see Database#insertColumnsBatch(Table, Collection, Collection)
+	 */
+	public CompletableFuture<BatchResult> insertColumnsBatch(final Table table, final Collection<String> columns,
+			final Collection<Collection<Object>> values) {
+		return database.supplyAsync(() -> database.insertColumnsBatch(table, columns, values));
+	}
+
+	/**
+	 * @see Database#upsert(Table, String, Collection, Collection)
+	 */
+	public CompletableFuture<Boolean> upsert(final Table table, final String index, final Collection<String> columns, final Collection<Object> values) {
+		return database.supplyAsync(() -> database.upsert(table, index, columns, values));
+	}
+
+	/**
+	 * @see Database#upsertBatch(Table, String, Collection, Collection)
+	 */
+	public CompletableFuture<BatchResult> upsertBatch(final Table table, final String index, final Collection<String> columns,
+			final Collection<Collection<Object>> values) {
+		return database.supplyAsync(() -> database.upsertBatch(table, index, columns, values));
+	}
+
+	/**
+	 * @see Database#updateValuesBatch(Table, String, Collection, Map)
+	 */
+	public CompletableFuture<BatchResult> updateValuesBatch(final Table table, final String index, final Collection<String> columns,
+			final Map<Object, Collection<Object>> indexToValues) {
+		return database.supplyAsync(() -> database.updateValuesBatch(table, index, columns, indexToValues));
+	}
+
+	/**
+	 * @see Database#getValue(Table, String, String, Object)
+	 */
+	public CompletableFuture<Object> getValue(final Table table, final String index, final String column, final Object value) {
+		return database.supplyAsync(() -> database.getValue(table, index, column, value));
+	}
+
+	/**
+	 * @see Database#getValue(Table, String, String, Object...)
+	 */
+	public CompletableFuture<Object> getValue(final Table table, final String sql, final String column, final Object... args) {
+		return database.supplyAsync(() -> database.getValue(table, sql, column, args));
+	}
+
+	/**
+	 * @see Database#getRow(Table, String, Object)
+	 */
+	public CompletableFuture<Map<String, Object>> getRow(final Table table, final String index, final Object value) {
+		return database.supplyAsync(() -> database.getRow(table, index, value));
+	}
+
+	/**
+	 * @see Database#getRows(Table, String, Collection)
+	 */
+	public <K> CompletableFuture<Map<K, Map<String, Object>>> getRows(final Table table, final String index, final Collection<K> keys) {
+		return database.supplyAsync(() -> database.getRows(table, index, keys));
+	}
+
+	/**
+	 * @see Database#getRow(Table, String, Object, Class)
+	 */
+	public <T> CompletableFuture<T> getRow(final Table table, final String index, final Object value, final Class<T> type) {
+		return database.supplyAsync(() -> database.getRow(table, index, value, type));
+	}
+
+	/**
+	 * @see Database#getRow(Table, String, Object, RowMapper)
+	 */
+	public <T> CompletableFuture<T> getRow(final Table table, final String index, final Object value, final RowMapper<T> mapper) {
+		return database.supplyAsync(() -> database.getRow(table, index, value, mapper));
+	}
+
+	/**
+	 * @see Database#getAllRows(Table, Class)
+	 */
+	public <T> CompletableFuture<List<T>> getAllRows(final Table table, final Class<T> type) {
+		return database.supplyAsync(() -> database.getAllRows(table, type));
+	}
+
+	/**
+	 * @see Database#query(String, RowMapper, Object...)
+	 */
+	public <T> CompletableFuture<List<T>> query(final String sql, final RowMapper<T> mapper, final Object... args) {
+		return database.supplyAsync(() -> database.query(sql, mapper, args));
+	}
+
+	/**
+	 * @see Database#getPage(PageQuery, String, int, RowMapper)
+	 */
+	public <T> CompletableFuture<Page<T>> getPage(final PageQuery query, @Nullable final String cursor, final int pageSize, final RowMapper<T> mapper) {
+		return database.supplyAsync(() -> database.getPage(query, cursor, pageSize, mapper));
+	}
+
+	/**
+	 * @see Database#getCursor(PageQuery, String, int)
+	 */
+	public CompletableFuture<String> getCursor(final PageQuery query, @Nullable final String cursor, final int rows) {
+		return database.supplyAsync(() -> database.getCursor(query, cursor, rows));
+	}
+
+	/**
+	 * @see Database#getAllRows(Table)
+	 */
+	public CompletableFuture<List<Map<String, Object>>> getAllRows(final Table table) {
+		return database.supplyAsync(() -> database.getAllRows(table));
+	}
+
+	/**
+	 * @see Database#forEachRow(Table, int, RowConsumer)
+	 */
+	public CompletableFuture<Boolean> forEachRow(final Table table, final int fetchSize, final RowConsumer consumer) {
+		return database.supplyAsync(() -> database.forEachRow(table, fetchSize, consumer));
+	}
+
+	/**
+	 * @see Database#contains(Table, String, Object)
+	 */
+	public CompletableFuture<Boolean> contains(final Table table, final String index, final Object value) {
+		return database.supplyAsync(() -> database.contains(table, index, value));
+	}
+
+	/**
+	 * @see Database#containsAll(Table, String, Collection)
+	 */
+	public <K> CompletableFuture<Set<K>> containsAll(final Table table, final String index, final Collection<K> values) {
+		return database.supplyAsync(() -> database.containsAll(table, index, values));
+	}
+
+	/**
+	 * @see Database#update(Table, String, String, Object, Object, String)
+	 */
+	public CompletableFuture<Void> update(final Table table, final String index, final String toUpdate, final Object indexValue,
+			final Object updateValue, final String extra) {
+		return database.runAsync(() -> database.update(table, index, toUpdate, indexValue, updateValue, extra));
+	}
+
+	/**
+	 * @see Database#update(Table, String, String, Object, Object)
+	 */
+	public CompletableFuture<Void> update(final Table table, final String index, final String toUpdate, final Object indexValue,
+			final Object updateValue) {
+		return database.runAsync(() -> database.update(table, index, toUpdate, indexValue, updateValue));
+	}
+
+	/**
+	 * @see Database#update(Table, String, Object...)
+	 */
+	public CompletableFuture<Integer> update(final Table table, final String sql, final Object... args) {
+		return database.supplyAsync(() -> database.update(table, sql, args));
+	}
+
+	/**
+	 * @see Database#updateRow(Table, String, Object, String, Object...)
+	 */
+	public CompletableFuture<Integer> updateRow(final Table table, final String index, final Object indexValue, final String sql,
+			final Object... args) {
+		return database.supplyAsync(() -> database.updateRow(table, index, indexValue, sql, args));
+	}
+
+	/**
+	 * @see Database#updateValues(Table, String, Object, Collection, Collection)
+	 */
+	public CompletableFuture<Boolean> updateValues(final Table table, final String index, final Object indexValue, final Collection<String> columns,
+			final Collection<Object> values) {
+		return database.supplyAsync(() -> database.updateValues(table, index, indexValue, columns, values));
+	}
+
+	/**
+	 * @see Database#remove(Table, String, Object)
+	 */
+	public CompletableFuture<Void> remove(final Table table, final String index, final Object value) {
+		return database.runAsync(() -> database.remove(table, index, value));
+	}
+
+	/**
+	 * @see Database#executeCountQuery(Table, String, Object...)
+	 */
+	public CompletableFuture<Integer> executeCountQuery(final Table table, final String where, final Object... args) {
+		return database.supplyAsync(() -> database.executeCountQuery(table, where, args));
+	}
+
+	/**
+	 * @see Database#transaction(SQLFunction)
+	 */
+	public <T> CompletableFuture<T> transaction(final SQLFunction<UnitOfWork, T> work) {
+		return database.supplyAsync(() -> database.transaction(work));
+	}
+
+	/**
+	 * Get the blocking database this view delegates to.
+	 *
+	 * @return Database
+	 */
+	public Database getDatabase() {
+		return database;
+	}
+}
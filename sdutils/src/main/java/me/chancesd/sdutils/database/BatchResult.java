@@ -0,0 +1,151 @@
+package me.chancesd.sdutils.database;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Result of a batch operation.
+ * <p>
+ * Batches are executed in chunks, each chunk in its own transaction. A failing chunk is rolled back
+ * and reported here while the remaining chunks still run.
+ */
+public class BatchResult {
+
+	private final List<Chunk> chunks = new ArrayList<>();
+
+	void addSuccess(final int firstRow, final int size, final int[] updateCounts) {
+		chunks.add(new Chunk(chunks.size(), firstRow, size, updateCounts, null));
+	}
+
+	void addFailure(final int firstRow, final int size, final SQLException error) {
+		chunks.add(new Chunk(chunks.size(), firstRow, size, null, error));
+	}
+
+	/**
+	 * @return All executed chunks in order
+	 */
+	public List<Chunk> getChunks() {
+		return Collections.unmodifiableList(chunks);
+	}
+
+	/**
+	 * @return Chunks that failed and were rolled back
+	 */
+	public List<Chunk> getFailures() {
+		return chunks.stream().filter(chunk -> !chunk.isSuccess()).toList();
+	}
+
+	/**
+	 * @return TRUE if every chunk was committed
+	 */
+	public boolean isSuccess() {
+		return chunks.stream().allMatch(Chunk::isSuccess);
+	}
+
+	/**
+	 * @return Amount of rows in committed chunks
+	 */
+	public int getSuccessfulRows() {
+		return chunks.stream().filter(Chunk::isSuccess).mapToInt(Chunk::getSize).sum();
+	}
+
+	/**
+	 * @return Amount of rows in chunks that were rolled back
+	 */
+	public int getFailedRows() {
+		return chunks.stream().filter(chunk -> !chunk.isSuccess()).mapToInt(Chunk::getSize).sum();
+	}
+
+	/**
+	 * Rows reported as affected by the driver.
+	 * Drivers that rewrite batches into multi-row statements don't report per row counts,
+	 * those rows are not included.
+	 *
+	 * @return Amount of affected rows
+	 */
+	public int getAffectedRows() {
+		return chunks.stream().mapToInt(Chunk::getAffectedRows).sum();
+	}
+
+	@Override
+	public String toString() {
+		return "BatchResult[chunks=" + chunks.size() + ", successfulRows=" + getSuccessfulRows() + ", failedRows=" + getFailedRows() + "]";
+	}
+
+	static BatchResult failed(final int rows, final SQLException error) {
+		final BatchResult result = new BatchResult();
+		result.addFailure(0, rows, error);
+		return result;
+	}
+
+	/**
+	 * A chunk of rows executed in one transaction
+	 */
+	public static class Chunk {
+		private final int index;
+		private final int firstRow;
+		private final int size;
+		private final int[] updateCounts;
+		private final SQLException error;
+
+		private Chunk(final int index, final int firstRow, final int size, final int[] updateCounts, final SQLException error) {
+			this.index = index;
+			this.firstRow = firstRow;
+			this.size = size;
+			this.updateCounts = updateCounts;
+			this.error = error;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * @return Position of the first row of this chunk in the submitted rows
+		 */
+		public int getFirstRow() {
+			return firstRow;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		public boolean isSuccess() {
+			return error == null;
+		}
+
+		/**
+		 * @return Update counts reported by the driver, null if the chunk failed
+		 */
+		@Nullable
+		public int[] getUpdateCounts() {
+			return updateCounts == null ? null : updateCounts.clone();
+		}
+
+		/**
+		 * @return The error that made this chunk fail, null if it succeeded
+		 */
+		@Nullable
+		public SQLException getError() {
+			return error;
+		}
+
+		public int getAffectedRows() {
+			if (updateCounts == null)
+				return 0;
+			int affected = 0;
+			for (final int count : updateCounts) {
+				if (count != Statement.SUCCESS_NO_INFO && count > 0) {
+					affected += count;
+				}
+			}
+			return affected;
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package me.chancesd.sdutils.database;
+
+import java.math.BigInteger;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.jetbrains.annotations.Nullable;
+
+import me.chancesd.sdutils.database.DatabaseConfigBuilder.DatabaseType;
+
+/**
+ * Column of a {@link Table} declared with {@link Table#Table(String, Column...)}.
+ *
+ * <pre>
+ * new Table("players",
+ * 		Column.of("uuid", ColumnType.VARCHAR).length(36).primaryKey(),
+ * 		Column.of("name", ColumnType.VARCHAR).length(16).notNull(),
+ * 		Column.of("kills", ColumnType.INTEGER).notNull().defaultValue("0"));
+ * </pre>
+ */
+public class Column {
+
+	private final String name;
+	private final ColumnType type;
+	private int length = 255;
+	private boolean nullable = true;
+	private boolean primaryKey;
+	private boolean autoIncrement;
+	@Nullable
+	private String defaultValue;
+
+	private Column(final String name, final ColumnType type) {
+		this.name = name;
+		this.type = type;
+	}
+
+	public static Column of(final String name, final ColumnType type) {
+		return new Column(name, type);
+	}
+
+	/**
+	 * @param newLength Maximum length of a {@link ColumnType#VARCHAR} column, 255 by default
+	 * @return this
+	 */
+	public Column length(final int newLength) {
+		this.length = newLength;
+		return this;
+	}
+
+	public Column notNull() {
+		this.nullable = false;
+		return this;
+	}
+
+	/**
+	 * Make this column part of the primary key, when several columns are marked they form a composite key
+	 *
+	 * @return this
+	 */
+	public Column primaryKey() {
+		this.primaryKey = true;
+		this.nullable = false;
+		return this;
+	}
+
+	/**
+	 * Make this an auto increment primary key, only valid for a single {@link ColumnType#INTEGER} key
+	 *
+	 * @return this
+	 */
+	public Column autoIncrement() {
+		this.autoIncrement = true;
+		return primaryKey();
+	}
+
+	/**
+	 * @param newDefaultValue SQL literal used as default, like {@code 0} or {@code 'none'}
+	 * @return this
+	 */
+	public Column defaultValue(final String newDefaultValue) {
+		this.defaultValue = newDefaultValue;
+		return this;
+	}
+
+	/**
+	 * Get the definition of this column for a create table statement.
+	 * The primary key is declared by the table, except for SQLite auto increment keys which have to be inline.
+	 *
+	 * @param databaseType Database type
+	 * @return Column definition
+	 */
+	String getDefinition(final DatabaseType databaseType) {
+		// SQLite only allows auto increment on INTEGER, which holds 64 bit values there
+		if (autoIncrement && databaseType == DatabaseType.SQLITE)
+			return name + " INTEGER PRIMARY KEY AUTOINCREMENT";
+		final StringBuilder definition = new StringBuilder(name).append(' ').append(type.getName(databaseType));
+		if (type == ColumnType.VARCHAR) {
+			definition.append('(').append(length).append(')');
+		}
+		if (!nullable) {
+			definition.append(" NOT NULL");
+		}
+		if (autoIncrement) {
+			definition.append(" AUTO_INCREMENT");
+		}
+		if (defaultValue != null) {
+			definition.append(" DEFAULT ").append(defaultValue);
+		}
+		return definition.toString();
+	}
+
+	/**
+	 * Bind a value for this column with the setter matching its type
+	 *
+	 * @param ps    Statement to bind to
+	 * @param index Parameter index
+	 * @param value Value to bind, may be null
+	 * @throws SQLException if the value could not be bound
+	 */
+	public void bind(final PreparedStatement ps, final int index, @Nullable final Object value) throws SQLException {
+		if (value == null) {
+			ps.setNull(index, type.getSqlType());
+			return;
+		}
+		switch (type) {
+		case INTEGER, BIGINT:
+			if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+				ps.setInt(index, ((Number) value).intValue());
+				return;
+			}
+			if (value instanceof final BigInteger big) {
+				if (big.bitLength() > 63)
+					throw new SQLException("Value " + big + " is out of range for column " + name);
+				ps.setLong(index, big.longValue());
+				return;
+			}
+			if (value instanceof final Number number) {
+				// longs are never cut to an int, the database rejects them if they don't fit the column
+				ps.setLong(index, number.longValue());
+				return;
+			}
+			break;
+		case DOUBLE:
+			if (value instanceof final Number number) {
+				ps.setDouble(index, number.doubleValue());
+				return;
+			}
+			break;
+		case BOOLEAN:
+			if (value instanceof final Boolean bool) {
+				ps.setBoolean(index, bool);
+				return;
+			}
+			break;
+		case VARCHAR, TEXT:
+			ps.setString(index, value.toString());
+			return;
+		case BLOB:
+			if (value instanceof final byte[] bytes) {
+				ps.setBytes(index, bytes);
+				return;
+			}
+			break;
+		}
+		ps.setObject(index, value);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public ColumnType getType() {
+		return type;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	public boolean isNullable() {
+		return nullable;
+	}
+
+	public boolean isPrimaryKey() {
+		return primaryKey;
+	}
+
+	public boolean isAutoIncrement() {
+		return autoIncrement;
+	}
+
+	@Nullable
+	public String getDefaultValue() {
+		return defaultValue;
+	}
+
+	@Override
+	public String toString() {
+		return getDefinition(DatabaseType.SQLITE);
+	}
+}
@@ -0,0 +1,45 @@
+package me.chancesd.sdutils.database;
+
+import java.sql.Types;
+
+import me.chancesd.sdutils.database.DatabaseConfigBuilder.DatabaseType;
+
+/**
+ * SQL type of a {@link Column}, with its name in each supported dialect.
+ */
+public enum ColumnType {
+
+	INTEGER("INTEGER", "INT", Types.INTEGER),
+	BIGINT("BIGINT", "BIGINT", Types.BIGINT),
+	DOUBLE("DOUBLE", "DOUBLE", Types.DOUBLE),
+	BOOLEAN("BOOLEAN", "TINYINT(1)", Types.BOOLEAN),
+	/** Text with a maximum length, see {@link Column#length(int)} */
+	VARCHAR("VARCHAR", "VARCHAR", Types.VARCHAR),
+	TEXT("TEXT", "TEXT", Types.LONGVARCHAR),
+	BLOB("BLOB", "BLOB", Types.BLOB);
+
+	private final String sqlite;
+	private final String mysql;
+	private final int sqlType;
+
+	ColumnType(final String sqlite, final String mysql, final int sqlType) {
+		this.sqlite = sqlite;
+		this.mysql = mysql;
+		this.sqlType = sqlType;
+	}
+
+	/**
+	 * @param type Database type
+	 * @return Name of this type in the dialect of the database
+	 */
+	public String getName(final DatabaseType type) {
+		return type == DatabaseType.MYSQL ? mysql : sqlite;
+	}
+
+	/**
+	 * @return Type from {@link java.sql.Types}
+	 */
+	public int getSqlType() {
+		return sqlType;
+	}
+}
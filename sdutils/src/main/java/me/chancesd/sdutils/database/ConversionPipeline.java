@@ -0,0 +1,198 @@
+package me.chancesd.sdutils.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import me.chancesd.sdutils.utils.Log;
+
+/**
+ * Runs a {@link StreamingConverter}.
+ * <p>
+ * The calling thread reads pages of the old table with keyset pagination, worker threads convert them and a
+ * single writer thread inserts them in read order. At most twice the amount of workers pages are in memory at once.
+ */
+class ConversionPipeline {
+
+	static final Table CHECKPOINTS = new Table("sdutils_checkpoints",
+			Column.of("converter", ColumnType.VARCHAR).length(255).primaryKey(),
+			Column.of("last_key", ColumnType.VARCHAR).length(255),
+			Column.of("converted_rows", ColumnType.BIGINT).notNull());
+	private static final List<String> CHECKPOINT_COLUMNS = Arrays.asList("converter", "last_key", "converted_rows");
+	private static final long PROGRESS_INTERVAL = TimeUnit.SECONDS.toNanos(5);
+	private final Database database;
+	private final StreamingConverter converter;
+	private final Table oldTable;
+	private final Table newTable;
+	private final String id;
+	private final AtomicLong written = new AtomicLong();
+	private volatile long lastProgress = System.nanoTime();
+
+	ConversionPipeline(final Database database, final StreamingConverter converter) {
+		this.database = database;
+		this.converter = converter;
+		this.oldTable = converter.getOldTable();
+		this.newTable = converter.getNewTable();
+		this.id = oldTable.getName() + "->" + newTable.getName();
+	}
+
+	/**
+	 * @return TRUE if the whole table was converted, FALSE if it failed
+	 */
+	boolean run() {
+		database.registerTable(CHECKPOINTS);
+		database.registerTable(newTable);
+		final String checkpoint = (String) database.getValue(CHECKPOINTS, "converter", "last_key", id);
+		final Object done = database.getValue(CHECKPOINTS, "converter", "converted_rows", id);
+		written.set(done instanceof final Number number ? number.longValue() : 0);
+		final long total = written.get() + database.executeCountQuery(oldTable,
+				checkpoint != null ? "WHERE " + converter.getKeyColumn() + " > ?" : "", checkpoint != null ? new Object[] { checkpoint } : new Object[0]);
+		if (checkpoint != null) {
+			Log.info("Resuming conversion of " + id + " after " + converter.getKeyColumn() + " " + checkpoint + " (" + written.get() + "/" + total + " rows)");
+		} else {
+			Log.info("Converting " + id + " (" + total + " rows)");
+		}
+
+		final int workers = converter.getWorkers();
+		final ExecutorService transformers = Executors.newFixedThreadPool(workers,
+				new ThreadFactoryBuilder().setNameFormat(database.getPlugin().getName() + " Conversion Worker - %d").build());
+		final ExecutorService writer = Executors.newSingleThreadExecutor(database.startupThreads(
+				new ThreadFactoryBuilder().setNameFormat(database.getPlugin().getName() + " Conversion Writer").build()));
+		final Semaphore inFlight = new Semaphore(workers * 2);
+		CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+		try {
+			Object lastKey = checkpoint;
+			while (true) {
+				inFlight.acquire();
+				if (lastWrite.isCompletedExceptionally()) {
+					break;
+				}
+				final List<Map<String, Object>> page = readPage(lastKey);
+				if (page.isEmpty()) {
+					inFlight.release();
+					break;
+				}
+				lastKey = RowCache.getColumn(page.get(page.size() - 1), converter.getKeyColumn());
+				final Object pageKey = lastKey;
+				final CompletableFuture<List<Collection<Object>>> converted = CompletableFuture.supplyAsync(() -> convert(page), transformers);
+				lastWrite = lastWrite.thenCombineAsync(converted, (v, rows) -> {
+					writePage(rows, pageKey);
+					reportProgress(total);
+					return null;
+				}, writer);
+				lastWrite.whenComplete((v, e) -> inFlight.release());
+				if (page.size() < converter.getPageSize()) {
+					break;
+				}
+			}
+			lastWrite.join();
+			database.remove(CHECKPOINTS, "converter", id);
+			Log.info("Finished converting " + id + " (" + written.get() + " rows)");
+			return true;
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			Log.severe("Interrupted while converting " + id + ", it will resume on the next start");
+		} catch (final SQLException | CompletionException e) {
+			Log.severe("Failed to convert " + id + " after " + written.get() + " rows, it will resume on the next start",
+					e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+		} finally {
+			transformers.shutdownNow();
+			writer.shutdown();
+			try {
+				writer.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return false;
+	}
+
+	private List<Map<String, Object>> readPage(@Nullable final Object lastKey) throws SQLException {
+		final String key = converter.getKeyColumn();
+		final String sql = "SELECT * FROM " + oldTable.getName() + (lastKey != null ? " WHERE " + key + " > ?" : "") + " ORDER BY " + key
+				+ " LIMIT " + converter.getPageSize();
+		try (Connection connection = database.getReadConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
+			ps.setFetchSize(converter.getPageSize());
+			if (lastKey != null) {
+				ps.setObject(1, lastKey);
+			}
+			try (ResultSet result = ps.executeQuery()) {
+				final List<Map<String, Object>> page = new ArrayList<>(converter.getPageSize());
+				final RowView view = new RowView(result);
+				while (result.next()) {
+					page.add(view.toMap());
+				}
+				return page;
+			}
+		}
+	}
+
+	private List<Collection<Object>> convert(final List<Map<String, Object>> page) {
+		final List<Collection<Object>> rows = new ArrayList<>(page.size());
+		for (final Map<String, Object> row : page) {
+			final List<Object> converted = converter.convert(row);
+			if (converted != null) {
+				rows.add(converted);
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * Insert a converted page and move the checkpoint in one transaction
+	 */
+	private void writePage(final List<Collection<Object>> rows, final Object lastKey) {
+		final long total = written.get() + rows.size();
+		try {
+			database.write(connection -> database.inTransaction(connection, c -> {
+				if (!rows.isEmpty()) {
+					try (PreparedStatement ps = c.prepareStatement(newTable.queries().insert(converter.getNewColumns()))) {
+						for (final Collection<Object> row : rows) {
+							int i = 0;
+							for (final Object value : row) {
+								ps.setObject(++i, value);
+							}
+							ps.addBatch();
+						}
+						ps.executeBatch();
+					}
+				}
+				try (PreparedStatement ps = c.prepareStatement(CHECKPOINTS.queries().upsert(database.getDatabaseType(), "converter", CHECKPOINT_COLUMNS))) {
+					ps.setString(1, id);
+					ps.setString(2, String.valueOf(lastKey));
+					ps.setLong(3, total);
+					return ps.executeUpdate();
+				}
+			}));
+		} catch (final SQLException e) {
+			throw new CompletionException(e);
+		}
+		written.set(total);
+	}
+
+	private void reportProgress(final long total) {
+		final long now = System.nanoTime();
+		if (now - lastProgress < PROGRESS_INTERVAL)
+			return;
+		lastProgress = now;
+		final long done = written.get();
+		Log.info("Converting " + id + ": " + done + "/" + total + " rows (" + (total > 0 ? done * 100 / total : 100) + "%)");
+	}
+}
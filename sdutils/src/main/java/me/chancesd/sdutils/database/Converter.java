@@ -8,22 +8,34 @@ import java.util.logging.Level;
 
 public interface Converter {
 
+	/**
+	 * Convert the database if it {@link #needsConversion(Database) needs conversion}.
+	 * The database version is updated afterwards even if this returns FALSE, only a {@link StreamingConverter}
+	 * that did not finish keeps the old version so it resumes on the next start. Converters that finished before it
+	 * are recorded in the database and not run again then.
+	 *
+	 * @param database Selected database
+	 * @return TRUE if the conversion finished, FALSE if it failed or wasn't needed
+	 */
 	default boolean onDatabaseLoad(final Database database) {
-		try (Connection connection = database.getConnection()) {
-			if (needsConversion(database)) {
-				final Table oldTable = getOldTable();
-				// Load entries
-				try (PreparedStatement ps = connection.prepareStatement("SELECT * FROM " + oldTable.getName());
-						ResultSet entries = ps.executeQuery()) {
-					// Convert
-					convertAll(database, entries);
+		// a lagging replica could miss rows, migrations always read from the primary
+		return database.readFromPrimary(() -> {
+			try (Connection connection = database.getReadConnection()) {
+				if (needsConversion(database)) {
+					final Table oldTable = getOldTable();
+					// Load entries
+					try (PreparedStatement ps = connection.prepareStatement("SELECT * FROM " + oldTable.getName());
+							ResultSet entries = ps.executeQuery()) {
+						// Convert
+						convertAll(database, entries);
+					}
+					return true;
 				}
-				return true;
+			} catch (final SQLException e) {
+				database.getPlugin().getLogger().log(Level.WARNING, "Failed to convert database", e);
 			}
-		} catch (final SQLException e) {
-			database.getPlugin().getLogger().log(Level.WARNING, "Failed to convert database", e);
-		}
-		return false;
+			return false;
+		});
 	}
 
 	public void onComplete();
@@ -1,20 +1,47 @@
 package me.chancesd.sdutils.database;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
@@ -22,10 +49,12 @@ import org.apache.logging.log4j.core.LoggerContext;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.Nullable;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
 import me.chancesd.sdutils.database.DatabaseConfigBuilder.DatabaseType;
+import me.chancesd.sdutils.scheduler.ScheduleUtils;
 import me.chancesd.sdutils.utils.Log;
 import me.chancesd.sdutils.utils.MCVersion;
 
@@ -33,58 +62,339 @@ public class Database {
 
 	private static final String MYSQL_URL_TEMPLATE = "jdbc:mysql://%s/%s";
 	private static final String SQLITE_URL_TEMPLATE = "jdbc:sqlite:%s";
+	private static final long REPLICA_CONNECTION_TIMEOUT = 2000;
+	private static final Pattern SCHEMA_STATEMENT = Pattern.compile("\\s*(ALTER|CREATE|DROP|RENAME)\\b", Pattern.CASE_INSENSITIVE);
+	// threads doing the asynchronous startup, they skip waiting for the database to be ready
+	private static final ThreadLocal<Boolean> STARTUP_THREAD = new ThreadLocal<>();
 	private final JavaPlugin plugin;
 	private final DatabaseType databaseType;
-	private final Map<String, Table> tableRegister = new HashMap<>();
+	private final int batchSize;
+	private final Map<String, Table> tableRegister = new ConcurrentHashMap<>();
 	private boolean converted;
 	private final HikariDataSource connectionPool;
-
-	private static final String SQL_SELECT_ALL = "SELECT * FROM ";
-	private static final String SQL_INSERT_INTO = "INSERT INTO ";
-	private static final String SQL_WHERE = " WHERE ";
-	private static final String SQL_VALUES = " VALUES(";
+	@Nullable
+	private final HikariDataSource readPool;
+	private final List<HikariDataSource> replicaPools = new ArrayList<>();
+	private final ReplicaRouter replicaRouter;
+	// connection of an in-memory database held by the current thread, work nested in a read reuses it
+	private final ThreadLocal<Connection> heldMemoryConnection = new ThreadLocal<>();
+	private final ExecutorService executor;
+	private final AsyncDatabase asyncDatabase;
+	private final DatabaseMetrics metrics;
+	private final SchemaCatalog schema = new SchemaCatalog(this);
+	private final Map<Table, Set<String>> indexChecked = new ConcurrentHashMap<>();
+	private WriteBehindQueue writeBehindQueue;
+	private final Map<String, LogTable> logTables = new HashMap<>();
+	@Nullable
+	private final SQLiteWriter writer;
+	private final boolean asyncStartup;
+	private final CompletableFuture<Database> ready;
+	private final Queue<Table> pendingTables = new ConcurrentLinkedQueue<>();
+	@Nullable
+	private final InvalidationChannel invalidationChannel;
+	// in-memory SQLite, the database only lives while at least one connection to it is open
+	@Nullable
+	private final String memoryUrl;
+	@Nullable
+	private final Connection memoryAnchor;
+	@Nullable
+	private final File snapshotFile;
+	@Nullable
+	private final ScheduledFuture<?> snapshotTask;
 
 	protected Database(final DatabaseFactory databaseFactory, final DatabaseConfigBuilder builder) {
 		this.plugin = databaseFactory.getPlugin();
-		this.databaseType = builder.getType();
-		final HikariConfig config = new HikariConfig();
+		// in-memory databases use the SQLite dialect everywhere else
+		this.databaseType = builder.getType() == DatabaseType.MEMORY ? DatabaseType.SQLITE : builder.getType();
+		// named per database, so plugins sharing the server don't share their in-memory database
+		this.memoryUrl = builder.getType() == DatabaseType.MEMORY ? "file:" + plugin.getName() + "-" + UUID.randomUUID() + "?mode=memory&cache=shared" : null;
+		this.snapshotFile = memoryUrl != null && builder.getFile() != null ? new File(builder.getFile()) : null;
+		this.batchSize = builder.getBatchSize();
+		this.metrics = new DatabaseMetrics(builder.getSlowQueryThreshold());
+		this.asyncStartup = builder.isAsyncStartup();
+		setLogLevel(Level.WARN);
 		if (databaseType == DatabaseType.SQLITE) {
-			// Use SQLITE
-			if (MCVersion.isLowerThan(MCVersion.V1_9)) {
-				try {
-					Class.forName("org.sqlite.JDBC"); // got to do this for 1.8 sigh
-					config.setConnectionTestQuery("SELECT 1;");
-				} catch (final ClassNotFoundException e) {
-					e.printStackTrace();
-				}
+			// SQLite only allows one writer at a time, so writes get a single connection and reads a separate pool
+			this.connectionPool = createPool(createSQLiteConfig(builder, false));
+			// in-memory databases have no WAL, reads share the write connection there
+			this.readPool = MCVersion.isAtLeast(MCVersion.V1_9) && memoryUrl == null ? createPool(createSQLiteConfig(builder, true)) : null;
+			this.writer = readPool != null ? new SQLiteWriter(connectionPool, plugin.getName() + " Database Writer") : null;
+			// pools retire connections, this one keeps the in-memory database alive between them
+			this.memoryAnchor = memoryUrl != null ? openMemoryAnchor() : null;
+		} else {
+			this.connectionPool = createPool(createMySQLConfig(builder, builder.getUrl(), plugin.getName()));
+			this.readPool = null;
+			for (int i = 0; i < builder.getReplicas().size(); i++) {
+				final HikariConfig config = createMySQLConfig(builder, builder.getReplicas().get(i), plugin.getName() + "-replica-" + (i + 1));
+				// reads fall back to the primary when a replica is down, don't wait the whole timeout for it
+				config.setConnectionTimeout(Math.min(config.getConnectionTimeout(), REPLICA_CONNECTION_TIMEOUT));
+				replicaPools.add(createPool(config));
+			}
+			this.writer = null;
+			this.memoryAnchor = null;
+		}
+		setLogLevel(Level.INFO);
+		this.replicaRouter = new ReplicaRouter(replicaPools, builder.getReplicaSelection(), builder.getReadYourWritesWindow());
+		metrics.addPool(connectionPool.getPoolName(), connectionPool);
+		if (readPool != null) {
+			metrics.addPool(readPool.getPoolName(), readPool);
+		}
+		replicaPools.forEach(pool -> metrics.addPool(pool.getPoolName(), pool));
+		// one thread per pooled connection, more threads would only wait on the pool
+		final int connections = connectionPool.getMaximumPoolSize() + (readPool != null ? readPool.getMaximumPoolSize() : 0)
+				+ replicaPools.stream().mapToInt(HikariDataSource::getMaximumPoolSize).sum();
+		this.executor = ScheduleUtils.newBoundedCachedThreadPool(1, connections,
+				new ThreadFactoryBuilder().setNameFormat(plugin.getName() + " Database Thread - %d").build());
+		this.asyncDatabase = new AsyncDatabase(this);
+		this.ready = asyncStartup ? new CompletableFuture<>() : CompletableFuture.completedFuture(this);
+		// only servers sharing a MySQL database can change each other's cached rows
+		this.invalidationChannel = databaseType == DatabaseType.MYSQL && builder.getInvalidationInterval() > 0
+				? new InvalidationChannel(this, builder.getInvalidationInterval())
+				: null;
+		this.snapshotTask = snapshotFile != null && builder.getSnapshotInterval() > 0
+				? ScheduleUtils.runAsyncTimer(() -> {
+					if (isReady()) {
+						snapshot();
+					}
+				}, builder.getSnapshotInterval(), builder.getSnapshotInterval(), TimeUnit.MILLISECONDS)
+				: null;
+		if (asyncStartup) {
+			final Thread startup = new Thread(() -> startup(databaseFactory), plugin.getName() + " Database Startup");
+			startup.setDaemon(true);
+			startup.start();
+			return;
+		}
+		restoreSnapshot();
+		if (!converted) {
+			databaseFactory.doConversion(this);
+			this.converted = true;
+		}
+	}
+
+	/**
+	 * Create a connection pool. With asynchronous startup the pool only connects when it is first used.
+	 */
+	private HikariDataSource createPool(final HikariConfig config) {
+		if (!asyncStartup)
+			return new HikariDataSource(config);
+		final HikariDataSource pool = new HikariDataSource();
+		config.copyStateTo(pool);
+		return pool;
+	}
+
+	private void startup(final DatabaseFactory databaseFactory) {
+		STARTUP_THREAD.set(Boolean.TRUE);
+		try {
+			setLogLevel(Level.WARN);
+			connectionPool.getConnection().close();
+			if (readPool != null) {
+				readPool.getConnection().close();
+			}
+			setLogLevel(Level.INFO);
+			restoreSnapshot();
+			registerPendingTables();
+			if (!converted) {
+				databaseFactory.doConversion(this);
+				this.converted = true;
 			}
-			config.setJdbcUrl(String.format(SQLITE_URL_TEMPLATE, builder.getFile()));
-			if (MCVersion.isAtLeast(MCVersion.V1_9)) {
-				config.addDataSourceProperty("journal_mode", "wal");
+			synchronized (pendingTables) {
+				registerPendingTables();
+				ready.complete(this);
 			}
-			config.addDataSourceProperty("synchronous", "normal");
+		} catch (final SQLException | RuntimeException e) {
+			setLogLevel(Level.INFO);
+			log("startup", "Failed to start database", e);
+			ready.completeExceptionally(e);
+		}
+	}
+
+	private Connection openMemoryAnchor() {
+		try {
+			return DriverManager.getConnection(String.format(SQLITE_URL_TEMPLATE, memoryUrl));
+		} catch (final SQLException e) {
+			throw new IllegalStateException("Failed to open in-memory database", e);
+		}
+	}
+
+	private void restoreSnapshot() {
+		if (memoryAnchor == null || snapshotFile == null || !snapshotFile.exists())
+			return;
+		try (Statement statement = memoryAnchor.createStatement()) {
+			statement.executeUpdate("restore from \"" + snapshotFile.getAbsolutePath() + "\"");
+			Log.info("Restored in-memory database from " + snapshotFile.getName());
+		} catch (final SQLException e) {
+			log("restoreSnapshot", "Failed to restore in-memory database from " + snapshotFile, e);
+		}
+	}
+
+	/**
+	 * Copy an in-memory database to its snapshot file with the SQLite backup API.
+	 * The copy is written next to the file and then moved over it, so a crash never leaves a partial snapshot.
+	 * Snapshots are also taken periodically if configured and when the database closes.
+	 *
+	 * @return TRUE if the snapshot was written, FALSE if it failed or this database has no snapshot file
+	 */
+	public boolean snapshot() {
+		if (snapshotFile == null)
+			return false;
+		final long startTime = System.nanoTime();
+		final File temp = new File(snapshotFile.getPath() + ".tmp");
+		try {
+			// queued with the writes, so the snapshot never contains half of a write
+			write(connection -> {
+				try (Statement statement = connection.createStatement()) {
+					return statement.executeUpdate("backup to \"" + temp.getAbsolutePath() + "\"");
+				}
+			});
+			Files.move(temp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch (final SQLException | IOException e) {
+			log("snapshot", "Failed to snapshot in-memory database to " + snapshotFile, e);
+		} finally {
+			metrics.record("snapshot", null, startTime);
+		}
+		return false;
+	}
+
+	/**
+	 * @return TRUE if this is an in-memory SQLite database
+	 */
+	public boolean isInMemory() {
+		return memoryUrl != null;
+	}
+
+	private void registerPendingTables() {
+		Table table;
+		while ((table = pendingTables.poll()) != null) {
+			registerTable(table);
+		}
+	}
+
+	/**
+	 * Get a future that completes once the database is ready to use.
+	 * <p>
+	 * Without asynchronous startup this is already completed. With it, the future completes after the pools
+	 * connected, the tables registered so far were created and the conversions finished. Operations called before
+	 * that wait for it instead of failing, so prefer running them once this completes to not block the caller.
+	 *
+	 * @return Future completed with this database, or exceptionally if the startup failed
+	 */
+	public CompletableFuture<Database> ready() {
+		return ready;
+	}
+
+	/**
+	 * @return TRUE if the database finished starting up
+	 */
+	public boolean isReady() {
+		return ready.isDone() && !ready.isCompletedExceptionally();
+	}
+
+	/**
+	 * Mark threads created by the factory as startup threads when called during the asynchronous startup,
+	 * so conversions that write from their own threads don't wait on the startup running them
+	 */
+	ThreadFactory startupThreads(final ThreadFactory factory) {
+		if (STARTUP_THREAD.get() == null)
+			return factory;
+		return runnable -> factory.newThread(() -> {
+			STARTUP_THREAD.set(Boolean.TRUE);
+			runnable.run();
+		});
+	}
+
+	private void awaitReady() throws SQLException {
+		if (ready.isDone() && !ready.isCompletedExceptionally() || STARTUP_THREAD.get() != null)
+			return;
+		try {
+			ready.join();
+		} catch (final CompletionException | CancellationException e) {
+			throw new SQLException("Database failed to start", e.getCause() != null ? e.getCause() : e);
+		}
+	}
+
+	private HikariConfig createSQLiteConfig(final DatabaseConfigBuilder builder, final boolean readOnly) {
+		final HikariConfig config = new HikariConfig();
+		if (MCVersion.isLowerThan(MCVersion.V1_9)) {
+			try {
+				Class.forName("org.sqlite.JDBC"); // got to do this for 1.8 sigh
+				config.setConnectionTestQuery("SELECT 1;");
+			} catch (final ClassNotFoundException e) {
+				e.printStackTrace();
+			}
+		}
+		config.setJdbcUrl(String.format(SQLITE_URL_TEMPLATE, memoryUrl != null ? memoryUrl : builder.getFile()));
+		if (memoryUrl == null && MCVersion.isAtLeast(MCVersion.V1_9)) {
+			config.addDataSourceProperty("journal_mode", "wal");
+		}
+		config.addDataSourceProperty("synchronous", "normal");
+		// wait for the write lock instead of failing right away with SQLITE_BUSY
+		config.addDataSourceProperty("busy_timeout", "5000");
+		if (readOnly) {
+			config.setPoolName(plugin.getName() + "-read");
+			config.setConnectionInitSql("PRAGMA query_only = true");
+			config.setMaximumPoolSize(builder.getPoolSize() > 0 ? builder.getPoolSize() : 4);
 		} else {
-			// Use MYSQL
-			config.setJdbcUrl(String.format(MYSQL_URL_TEMPLATE, builder.getUrl(), builder.getDatabase()));
-			config.setUsername(builder.getUser());
-			config.setPassword(builder.getPassword());
+			config.setPoolName(plugin.getName());
+			// in-memory connections share one cache with table level locks, a second connection would fail to read
+			// tables with an open write instead of waiting, so reads and writes take turns on a single connection
+			if (memoryUrl != null || MCVersion.isAtLeast(MCVersion.V1_9)) {
+				config.setMaximumPoolSize(1);
+			} else if (builder.getPoolSize() > 0) {
+				// without WAL there are no separate read connections, so keep the pool size configurable
+				config.setMaximumPoolSize(builder.getPoolSize());
+			}
+		}
+		applyPoolSettings(config, builder);
+		return config;
+	}
+
+	private HikariConfig createMySQLConfig(final DatabaseConfigBuilder builder, final String host, final String poolName) {
+		final HikariConfig config = new HikariConfig();
+		config.setJdbcUrl(String.format(MYSQL_URL_TEMPLATE, host, builder.getDatabase()));
+		config.setUsername(builder.getUser());
+		config.setPassword(builder.getPassword());
+		config.setPoolName(poolName);
+		if (builder.getPoolSize() > 0) {
+			config.setMaximumPoolSize(builder.getPoolSize());
 		}
-		config.setPoolName(plugin.getName());
+		config.addDataSourceProperty("useServerPrepStmts", "true");
+		config.addDataSourceProperty("useLocalSessionState", "true");
+		config.addDataSourceProperty("cacheServerConfiguration", "true");
+		config.addDataSourceProperty("elideSetAutoCommits", "true");
+		config.addDataSourceProperty("maintainTimeStats", "false");
+		// lets Connector/J send a batch as multi-row statements instead of one round trip per row
+		config.addDataSourceProperty("rewriteBatchedStatements", "true");
+		applyPoolSettings(config, builder);
+		return config;
+	}
+
+	private void applyPoolSettings(final HikariConfig config, final DatabaseConfigBuilder builder) {
 		config.addDataSourceProperty("cachePrepStmts", "true");
 		config.addDataSourceProperty("prepStmtCacheSize", "250");
 		config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
-		setLogLevel(Level.WARN);
-		this.connectionPool = new HikariDataSource(config);
-		setLogLevel(Level.INFO);
-		if (!converted) {
-			databaseFactory.doConversion(this);
-			this.converted = true;
+		if (builder.getMinimumIdle() >= 0) {
+			config.setMinimumIdle(builder.getMinimumIdle());
+		}
+		if (builder.getConnectionTimeout() >= 0) {
+			config.setConnectionTimeout(builder.getConnectionTimeout());
+		}
+		if (builder.getIdleTimeout() >= 0) {
+			config.setIdleTimeout(builder.getIdleTimeout());
 		}
+		if (builder.getMaxLifetime() >= 0) {
+			config.setMaxLifetime(builder.getMaxLifetime());
+		}
+		if (builder.getLeakDetectionThreshold() >= 0) {
+			config.setLeakDetectionThreshold(builder.getLeakDetectionThreshold());
+		}
+		builder.getDataSourceProperties().forEach(config::addDataSourceProperty);
 	}
 
 	public <T> void doQuery(final String sql, final Consumer<T> consumer, final String field, final Class<T> type) {
-		CompletableFuture.runAsync(() -> {
-			try (Connection connection = getConnection();
+		runAsync(() -> {
+			final long startTime = System.nanoTime();
+			try (Connection connection = getReadConnection();
 					PreparedStatement ps = connection.prepareStatement(sql);
 					ResultSet result = ps.executeQuery()) {
 				if (result.next()) {
@@ -92,7 +402,9 @@ public class Database {
 					consumer.accept(value);
 				}
 			} catch (final SQLException e) {
-				log("Failed to do query", e);
+				log("query", "Failed to do query", e);
+			} finally {
+				metrics.record("query", null, startTime);
 			}
 		});
 	}
@@ -103,12 +415,66 @@ public class Database {
 	 * @param table Table to register.
 	 */
 	public void registerTable(final Table table) {
-		try (Connection connection = getConnection();
-				PreparedStatement ps = connection.prepareStatement("CREATE TABLE IF NOT EXISTS " + table.getName() + table.getUsage())) {
-			ps.executeUpdate();
+		if (!ready.isDone() && STARTUP_THREAD.get() == null) {
+			synchronized (pendingTables) {
+				if (!ready.isDone()) {
+					tableRegister.put(table.getName(), table);
+					pendingTables.add(table);
+					return;
+				}
+			}
+		}
+		final long startTime = System.nanoTime();
+		try {
+			write(connection -> {
+				try (PreparedStatement ps = connection.prepareStatement("CREATE TABLE IF NOT EXISTS " + table.getName() + table.getUsage(databaseType))) {
+					return ps.executeUpdate();
+				}
+			});
 			tableRegister.put(table.getName(), table);
+			schema.refresh(table.getName());
+			createIndexes(table);
 		} catch (final SQLException e) {
-			log("Failed to register table", e);
+			log("registerTable", "Failed to register table", e);
+		} finally {
+			metrics.record("registerTable", table.getName(), startTime);
+		}
+	}
+
+	private void createIndexes(final Table table) {
+		if (table.getIndexes().isEmpty())
+			return;
+		final SchemaCatalog.TableInfo info = databaseType == DatabaseType.MYSQL ? schema.getTable(table.getName()) : null;
+		boolean created = false;
+		for (final TableIndex index : table.getIndexes()) {
+			if (info != null && info.getIndexes().stream().anyMatch(existing -> existing.getName().equalsIgnoreCase(index.getName())))
+				continue;
+			try {
+				write(connection -> {
+					try (PreparedStatement ps = connection.prepareStatement(index.getCreateStatement(databaseType, table.getName()))) {
+						return ps.executeUpdate();
+					}
+				});
+				created = true;
+			} catch (final SQLException e) {
+				log("createIndex", "Failed to create index " + index.getName(), e);
+			}
+		}
+		if (created) {
+			schema.refresh(table.getName());
+		}
+	}
+
+	/**
+	 * Warn once per table and column when a lookup filters on a column without an index,
+	 * since that makes the database scan the whole table
+	 */
+	private void checkIndexed(final Table table, final String column) {
+		if (!indexChecked.computeIfAbsent(table, t -> ConcurrentHashMap.newKeySet()).add(column) || table.hasIndexOn(column))
+			return;
+		final SchemaCatalog.TableInfo info = schema.getTable(table.getName());
+		if (info != null && info.getColumn(column) != null && !info.isIndexed(column)) {
+			Log.warning("Table " + table.getName() + " is queried by column " + column + " which has no index, declare one with Table#index");
 		}
 	}
 
@@ -118,11 +484,22 @@ public class Database {
 	 * @param table Name of table
 	 */
 	public void deleteTable(final String table) {
-		try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement("DROP TABLE " + table)) {
-			ps.executeUpdate();
-			tableRegister.remove(table);
+		final long startTime = System.nanoTime();
+		try {
+			write(connection -> {
+				try (PreparedStatement ps = connection.prepareStatement("DROP TABLE " + table)) {
+					return ps.executeUpdate();
+				}
+			});
+			schema.remove(table);
+			final Table removed = tableRegister.remove(table);
+			if (removed != null) {
+				invalidateAll(removed);
+			}
 		} catch (final SQLException e) {
-			log("Failed to delete table", e);
+			log("deleteTable", "Failed to delete table", e);
+		} finally {
+			metrics.record("deleteTable", table, startTime);
 		}
 	}
 
@@ -133,53 +510,46 @@ public class Database {
 	 * @param newName New name
 	 */
 	public void renameTable(final String oldName, final String newName) {
-		try (Connection connection = getConnection(); PreparedStatement ps = connection.prepareStatement("RENAME " + oldName + " TO " + newName)) {
-			ps.executeUpdate();
+		final long startTime = System.nanoTime();
+		try {
+			write(connection -> {
+				try (PreparedStatement ps = connection.prepareStatement("RENAME " + oldName + " TO " + newName)) {
+					return ps.executeUpdate();
+				}
+			});
+			schema.remove(oldName);
+			schema.refresh(newName);
 			final Table table = tableRegister.get(oldName);
 			if (table != null) {
 				tableRegister.remove(oldName);
 				tableRegister.put(newName, table);
 			}
 		} catch (final SQLException e) {
-			log("Failed to rename table", e);
+			log("renameTable", "Failed to rename table", e);
+		} finally {
+			metrics.record("renameTable", oldName, startTime);
 		}
 	}
 
 	/**
-	 * Check if a certain table exists
+	 * Check if a certain table exists, see {@link #getSchema()}
 	 *
 	 * @param table Name of table
 	 * @return Table exists?
 	 */
 	public boolean tableExists(final String table) {
-		try (Connection connection = getConnection()) {
-			final DatabaseMetaData metadata = connection.getMetaData();
-			try (ResultSet result = metadata.getTables(null, null, table, null)) {
-				return result.next();
-			}
-		} catch (final SQLException e) {
-			log("Failed to check if table exists", e);
-			return false;
-		}
+		return schema.tableExists(table);
 	}
 
 	/**
-	 * Check if a certain column in a table exists
+	 * Check if a certain column in a table exists, see {@link #getSchema()}
 	 *
 	 * @param table  Name of table
 	 * @param column Name of column
 	 * @return Column exists?
 	 */
 	public boolean columnExists(final String table, final String column) {
-		try (Connection connection = getConnection()) {
-			final DatabaseMetaData metadata = connection.getMetaData();
-			try (ResultSet result = metadata.getColumns(null, null, table, column)) {
-				return result.next();
-			}
-		} catch (final SQLException e) {
-			log("Failed to check database if column exists", e);
-			return false;
-		}
+		return schema.columnExists(table, column);
 	}
 
 	/**
@@ -189,17 +559,21 @@ public class Database {
 	 * @param values Values to insert
 	 */
 	public void insertDefault(final Table table, final Object... values) {
-		try (Connection connection = getConnection()) {
-			final StringBuilder valueCount = getValueParameteres(Arrays.asList(values));
-			try (PreparedStatement ps = connection.prepareStatement(SQL_INSERT_INTO + table.getName() + SQL_VALUES + valueCount + ");")) {
-				for (int i = 0; i < values.length; i++) {
-					ps.setObject(i + 1, values[i]);
+		final long startTime = System.nanoTime();
+		try {
+			write(connection -> {
+				try (PreparedStatement ps = connection.prepareStatement(table.queries().insertDefault(values.length))) {
+					final List<Column> columns = table.getColumns();
+					for (int i = 0; i < values.length; i++) {
+						bind(ps, i + 1, i < columns.size() ? columns.get(i) : null, values[i]);
+					}
+					return ps.executeUpdate();
 				}
-
-				ps.executeUpdate();
-			}
+			});
 		} catch (final SQLException e) {
-			log("Failed to insert data to database", e);
+			log("insert", "Failed to insert data to database", e);
+		} finally {
+			metrics.record("insert", table.getName(), startTime);
 		}
 	}
 
@@ -211,30 +585,20 @@ public class Database {
 	 * @param values  Values to insert
 	 */
 	public boolean insertColumns(final Table table, final Collection<String> columns, final Collection<Object> values) {
-		try (Connection connection = getConnection()) {
-			final StringBuilder valueCount = getValueParameteres(values);
-			final StringBuilder columnList = new StringBuilder("(");
-			int index = 0;
-			for (final String col : columns) {
-				columnList.append(col);
-				index++;
-				if (index < columns.size()) {
-					columnList.append(",");
-				}
-			}
-			columnList.append(")");
-			try (PreparedStatement ps = connection.prepareStatement(SQL_INSERT_INTO + table.getName() + columnList + SQL_VALUES + valueCount + ");")) {
-				int i = 0;
-				for (final Object object : values) {
-					ps.setObject(++i, object);
+		final long startTime = System.nanoTime();
+		try {
+			write(connection -> {
+				try (PreparedStatement ps = connection.prepareStatement(table.queries().insert(columns))) {
+					bindRow(ps, table.resolveColumns(columns), values);
+					return ps.executeUpdate();
 				}
-
-				ps.executeUpdate();
-			}
+			});
 			return true;
 		} catch (final SQLException e) {
-			log("Failed to insert data to database", e);
+			log("insert", "Failed to insert data to database", e);
 			return false;
+		} finally {
+			metrics.record("insert", table.getName(), startTime);
 		}
 	}
 
@@ -246,40 +610,216 @@ public class Database {
 	 * @param table   Table to insert data in
 	 * @param columns Collection of column names
 	 * @param values  Collection of values to insert
+	 * @return Result of each executed chunk
 	 */
-	public void insertColumnsBatch(final Table table, final Collection<String> columns, final Collection<Collection<Object>> values) {
-		try (Connection connection = getConnection()) {
-			final Collection<Object> collection = values.stream().findFirst().orElse(Collections.emptyList());
-			final StringBuilder valueCount = getValueParameteres(collection);
-			final StringBuilder columnList = new StringBuilder("(");
-			int index = 0;
-			for (final String col : columns) {
-				columnList.append(col);
-				index++;
-				if (index < columns.size()) {
-					columnList.append(",");
+	public BatchResult insertColumnsBatch(final Table table, final Collection<String> columns, final Collection<Collection<Object>> values) {
+		final Column[] types = table.resolveColumns(columns);
+		return executeBatch(table, "insert", table.queries().insert(columns), values, (ps, row) -> bindRow(ps, types, row));
+	}
+
+	/**
+	 * Insert a row, or update it if a row with the same index value already exists.
+	 * <p>
+	 * Runs as a single statement, {@code INSERT ... ON DUPLICATE KEY UPDATE} on MySQL and
+	 * {@code INSERT ... ON CONFLICT DO UPDATE} on SQLite (requires SQLite 3.24+).
+	 * The index must be a primary key or have a unique constraint.
+	 *
+	 * @param table   Table to insert data in
+	 * @param index   Unique column identifying the row, must be one of the columns
+	 * @param columns Collection of column names
+	 * @param values  Values to insert, in the same order as the columns
+	 * @return TRUE if successful, FALSE if it failed
+	 */
+	public boolean upsert(final Table table, final String index, final Collection<String> columns, final Collection<Object> values) {
+		final long startTime = System.nanoTime();
+		try {
+			write(connection -> {
+				try (PreparedStatement ps = connection.prepareStatement(table.queries().upsert(databaseType, index, columns))) {
+					bindRow(ps, table.resolveColumns(columns), values);
+					return ps.executeUpdate();
 				}
-			}
-			columnList.append(")");
-			try (PreparedStatement ps = connection.prepareStatement(SQL_INSERT_INTO + table.getName() + columnList + SQL_VALUES + valueCount + ");")) {
-				int inserts = 0;
-				for (final Collection<Object> object : values) {
-					int i = 0;
-					for (final Object value : object) {
-						ps.setObject(++i, value);
-					}
-					ps.addBatch();
-					inserts++;
-					if (inserts % 1000 == 0 || inserts == values.size()) {
-						ps.executeBatch();
+			});
+			return true;
+		} catch (final SQLException e) {
+			log("upsert", "Failed to upsert data to database", e);
+			return false;
+		} finally {
+			metrics.record("upsert", table.getName(), startTime);
+			invalidateRows(table, index, columns, Collections.singletonList(values));
+		}
+	}
+
+	/**
+	 * Insert or update many rows in batch, see {@link #upsert(Table, String, Collection, Collection)}
+	 *
+	 * All the collections of values must have the same size and the same object order
+	 *
+	 * @param table   Table to insert data in
+	 * @param index   Unique column identifying the rows, must be one of the columns
+	 * @param columns Collection of column names
+	 * @param values  Collection of values to insert
+	 * @return Result of each executed chunk
+	 */
+	public BatchResult upsertBatch(final Table table, final String index, final Collection<String> columns,
+			final Collection<Collection<Object>> values) {
+		try {
+			final Column[] types = table.resolveColumns(columns);
+			return executeBatch(table, "upsert", table.queries().upsert(databaseType, index, columns), values, (ps, row) -> bindRow(ps, types, row));
+		} finally {
+			invalidateRows(table, index, columns, values);
+		}
+	}
+
+	/**
+	 * Execute a batch statement in chunks of the configured batch size.
+	 * Every chunk runs in its own transaction, a failing chunk is rolled back and reported
+	 * in the result while the following chunks still execute.
+	 */
+	private <T> BatchResult executeBatch(final Table table, final String operation, final String sql, final Collection<T> rows, final RowBinder<T> binder) {
+		final BatchResult result = new BatchResult();
+		if (rows.isEmpty())
+			return result;
+		metrics.recordBatch(operation, rows.size());
+		final long startTime = System.nanoTime();
+		try {
+			write(connection -> {
+				try (PreparedStatement ps = connection.prepareStatement(sql)) {
+					int count = 0;
+					int chunkStart = 0;
+					for (final T row : rows) {
+						try {
+							binder.bind(ps, row);
+							ps.addBatch();
+						} catch (final SQLException | RuntimeException e) {
+							// earlier chunks are already committed, only the rest of the rows failed
+							ps.clearBatch();
+							result.addFailure(chunkStart, rows.size() - chunkStart, e instanceof final SQLException sqlException ? sqlException : new SQLException(e));
+							return result;
+						}
+						count++;
+						if (count % batchSize == 0 || count == rows.size()) {
+							final int firstRow = chunkStart;
+							final int size = count - chunkStart;
+							try {
+								result.addSuccess(firstRow, size, inTransaction(connection, c -> ps.executeBatch()));
+							} catch (final SQLException e) {
+								ps.clearBatch();
+								result.addFailure(firstRow, size, e);
+							}
+							chunkStart = count;
+						}
 					}
 				}
-			}
+				return result;
+			});
 		} catch (final SQLException e) {
-			log("Failed to insert batch data to database", e);
+			log(operation + "Batch", "Failed to " + operation + " batch data to database", e);
+			// the SQLite writer only fails a write it rolled back as a whole, otherwise the chunks before the failure stay committed
+			if (writer != null)
+				return BatchResult.failed(rows.size(), e);
+			final int recorded = result.getChunks().stream().mapToInt(BatchResult.Chunk::getSize).sum();
+			result.addFailure(recorded, rows.size() - recorded, e);
+			return result;
+		} finally {
+			metrics.record(operation + "Batch", table.getName(), startTime);
+		}
+		if (!result.isSuccess()) {
+			final BatchResult.Chunk failure = result.getFailures().get(0);
+			log(operation + "Batch", "Failed to " + operation + " " + result.getFailedRows() + " of " + rows.size() + " rows in batch, first failure at row "
+					+ failure.getFirstRow(), failure.getError());
+		}
+		return result;
+	}
+
+	/**
+	 * Run a block of operations on one connection in one transaction, see {@link UnitOfWork}.
+	 * The transaction is committed when the work returns and rolled back when it throws or calls
+	 * {@link UnitOfWork#rollback()}. On SQLite it runs on the writer thread, so keep it short.
+	 *
+	 * @param <T>  Return type of the work
+	 * @param work Operations to run
+	 * @return Result of the work, NULL if it was rolled back or failed
+	 */
+	@Nullable
+	public <T> T transaction(final SQLFunction<UnitOfWork, T> work) {
+		final long startTime = System.nanoTime();
+		final List<UnitOfWork> committed = new ArrayList<>(1);
+		try {
+			final T result = write(connection -> inTransaction(connection, c -> {
+				final UnitOfWork unit = new UnitOfWork(this, c);
+				final T value = work.apply(unit);
+				if (unit.isRollbackOnly())
+					throw new UnitOfWork.RollbackSignal();
+				committed.add(unit);
+				return value;
+			}));
+			committed.forEach(UnitOfWork::applyInvalidations);
+			return result;
+		} catch (final UnitOfWork.RollbackSignal e) {
+			return null;
+		} catch (final SQLException | RuntimeException e) {
+			log("transaction", "Failed to run transaction", e);
+			return null;
+		} finally {
+			metrics.record("transaction", null, startTime);
+		}
+	}
+
+	/**
+	 * Run work in a transaction on the given connection.
+	 * If the connection is in auto-commit mode a transaction is started and committed, otherwise the work runs
+	 * inside a savepoint of the transaction that is already open. Either way the work is rolled back if it fails.
+	 */
+	<T> T inTransaction(final Connection connection, final SQLFunction<Connection, T> work) throws SQLException {
+		if (connection.getAutoCommit()) {
+			connection.setAutoCommit(false);
+			try {
+				final T result = work.apply(connection);
+				connection.commit();
+				return result;
+			} catch (final SQLException | RuntimeException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				connection.setAutoCommit(true);
+			}
+		}
+		final Savepoint savepoint = connection.setSavepoint();
+		try {
+			final T result = work.apply(connection);
+			connection.releaseSavepoint(savepoint);
+			return result;
+		} catch (final SQLException | RuntimeException e) {
+			connection.rollback(savepoint);
+			throw e;
 		}
 	}
 
+	/**
+	 * Bind a row of values, with the setters of the declared column types when they are known
+	 *
+	 * @param types Declared column of each value, see {@link Table#resolveColumns(Collection)}
+	 */
+	static void bindRow(final PreparedStatement ps, @Nullable final Column[] types, final Collection<Object> row) throws SQLException {
+		int i = 0;
+		for (final Object value : row) {
+			bind(ps, ++i, types != null && i <= types.length ? types[i - 1] : null, value);
+		}
+	}
+
+	static void bind(final PreparedStatement ps, final int index, @Nullable final Column column, final Object value) throws SQLException {
+		if (column != null) {
+			column.bind(ps, index, value);
+		} else {
+			ps.setObject(index, value);
+		}
+	}
+
+	@FunctionalInterface
+	private interface RowBinder<T> {
+		void bind(PreparedStatement ps, T row) throws SQLException;
+	}
+
 	/**
 	 * Update multiple values in the database in batch
 	 *
@@ -287,39 +827,20 @@ public class Database {
 	 * @param index         Index to search with
 	 * @param columns       Columns to update
 	 * @param indexToValues Map of index values to their corresponding column values
+	 * @return Result of each executed chunk
 	 */
-	public void updateValuesBatch(final Table table, final String index, final Collection<String> columns,
+	public BatchResult updateValuesBatch(final Table table, final String index, final Collection<String> columns,
 			final Map<Object, Collection<Object>> indexToValues) {
-		try (Connection connection = getConnection()) {
-			final StringBuilder updateString = new StringBuilder();
-			int i = 0;
-			for (final String col : columns) {
-				updateString.append(col + "=?");
-				i++;
-				if (i < columns.size()) {
-					updateString.append(",");
-				}
-			}
-
-			try (PreparedStatement ps = connection.prepareStatement(
-					"UPDATE " + table.getName() + " SET " + updateString + " WHERE " + index + "=?")) {
-				int updates = 0;
-
-				for (final Map.Entry<Object, Collection<Object>> entry : indexToValues.entrySet()) {
-					int paramIndex = 1;
-					for (final Object value : entry.getValue()) {
-						ps.setObject(paramIndex++, value);
-					}
-					ps.setObject(paramIndex, entry.getKey());
-					ps.addBatch();
-
-					if (++updates % 1000 == 0 || updates == indexToValues.size()) {
-						ps.executeBatch();
-					}
-				}
-			}
-		} catch (final SQLException e) {
-			log("Failed to batch update database", e);
+		checkIndexed(table, index);
+		final Column[] types = table.resolveColumns(columns);
+		final Column indexColumn = table.getColumn(index);
+		try {
+			return executeBatch(table, "update", table.queries().update(index, columns), indexToValues.entrySet(), (ps, entry) -> {
+				bindRow(ps, types, entry.getValue());
+				bind(ps, entry.getValue().size() + 1, indexColumn, entry.getKey());
+			});
+		} finally {
+			indexToValues.keySet().forEach(key -> invalidate(table, index, key));
 		}
 	}
 
@@ -333,15 +854,21 @@ public class Database {
 	 * @return Value of found, NULL if not.
 	 */
 	public Object getValue(final Table table, final String index, final String column, final Object value) {
-		try (Connection connection = getConnection();
-				final PreparedStatement ps = connection.prepareStatement(SQL_SELECT_ALL + table.getName() + SQL_WHERE + index + "=?")) {
-			ps.setObject(1, value);
+		checkIndexed(table, index);
+		if (table.getRowCache() != null)
+			return RowCache.getColumn(getRow(table, index, value), column);
+		final long startTime = System.nanoTime();
+		try (Connection connection = getReadConnection();
+				final PreparedStatement ps = connection.prepareStatement(table.queries().selectByKey(index))) {
+			bind(ps, 1, table.getColumn(index), value);
 			try (ResultSet result = ps.executeQuery()) {
 				if (result.next())
 					return result.getObject(column);
 			}
 		} catch (final SQLException e) {
-			log("Failed to get value from database", e);
+			log("getValue", "Failed to get value from database", e);
+		} finally {
+			metrics.record("getValue", table.getName(), startTime);
 		}
 
 		return null;
@@ -356,7 +883,8 @@ public class Database {
 	 * @return Value of found, NULL if not.
 	 */
 	public Object getValue(final Table table, final String sql, final String column, final Object... args) {
-		try (Connection connection = getConnection();
+		final long startTime = System.nanoTime();
+		try (Connection connection = getReadConnection();
 				final PreparedStatement ps = connection.prepareStatement(sql)) {
 			for (int i = 0; i < args.length; i++) {
 				final Object object = args[i];
@@ -367,7 +895,9 @@ public class Database {
 					return result.getObject(column);
 			}
 		} catch (final SQLException e) {
-			log("Failed to get value from database", e);
+			log("getValue", "Failed to get value from database", e);
+		} finally {
+			metrics.record("getValue", table.getName(), startTime);
 		}
 
 		return null;
@@ -382,9 +912,19 @@ public class Database {
 	 * @return Value of found, empty map if not.
 	 */
 	public Map<String, Object> getRow(final Table table, final String index, final Object value) {
-		try (Connection connection = getConnection();
-				final PreparedStatement ps = connection.prepareStatement(SQL_SELECT_ALL + table.getName() + SQL_WHERE + index + "=?")) {
-			ps.setObject(1, value);
+		checkIndexed(table, index);
+		final RowCache cache = table.getRowCache();
+		long stamp = 0;
+		if (cache != null) {
+			final Map<String, Object> cached = cache.get(index, value);
+			if (cached != null)
+				return new HashMap<>(cached);
+			stamp = cache.stamp();
+		}
+		final long startTime = System.nanoTime();
+		try (Connection connection = getReadConnection();
+				final PreparedStatement ps = connection.prepareStatement(table.queries().selectByKey(index))) {
+			bind(ps, 1, table.getColumn(index), value);
 			try (final ResultSet result = ps.executeQuery()) {
 				if (result.next()) {
 					final ResultSetMetaData metaData = result.getMetaData();
@@ -392,16 +932,249 @@ public class Database {
 					for (int i = 1; i <= metaData.getColumnCount(); i++) {
 						row.put(metaData.getColumnName(i), result.getObject(i));
 					}
+					if (cache != null) {
+						cache.put(index, value, row, stamp);
+						return new HashMap<>(row);
+					}
 					return row;
 				}
 			}
 		} catch (final SQLException e) {
-			log("Failed to get data from database", e);
+			log("getRow", "Failed to get data from database", e);
+		} finally {
+			metrics.record("getRow", table.getName(), startTime);
 		}
 
 		return Collections.emptyMap();
 	}
 
+	/**
+	 * Get many rows from a table at once.
+	 * Keys are fetched in chunks with an IN list, so loading hundreds of rows only takes a few round trips.
+	 * Rows in the row cache are served from it and fetched rows are added to it.
+	 *
+	 * @param <K>   Type of the keys
+	 * @param table Table to get rows from
+	 * @param index Column to search with.
+	 * @param keys  Values to search with.
+	 * @return Map of the found keys to their row, keys that were not found are absent.
+	 */
+	public <K> Map<K, Map<String, Object>> getRows(final Table table, final String index, final Collection<K> keys) {
+		checkIndexed(table, index);
+		final Map<K, Map<String, Object>> rows = new HashMap<>();
+		final RowCache cache = table.getRowCache();
+		final long stamp = cache != null ? cache.stamp() : 0;
+		final Map<String, K> pending = new LinkedHashMap<>();
+		for (final K key : keys) {
+			final Map<String, Object> cached = cache != null ? cache.get(index, key) : null;
+			if (cached != null) {
+				rows.put(key, new HashMap<>(cached));
+			} else {
+				pending.put(String.valueOf(key), key);
+			}
+		}
+		if (pending.isEmpty())
+			return rows;
+
+		final List<K> pendingKeys = new ArrayList<>(pending.values());
+		final int chunkSize = getInChunkSize();
+		final long startTime = System.nanoTime();
+		try (Connection connection = getReadConnection()) {
+			for (int start = 0; start < pendingKeys.size(); start += chunkSize) {
+				final List<K> chunk = pendingKeys.subList(start, Math.min(start + chunkSize, pendingKeys.size()));
+				final int parameterCount = getInParameterCount(chunk.size(), chunkSize);
+				try (PreparedStatement ps = connection.prepareStatement(table.queries().selectIn(index, parameterCount))) {
+					bindInList(ps, chunk, parameterCount);
+					try (ResultSet result = ps.executeQuery()) {
+						final RowView view = new RowView(result);
+						final int keyColumn = view.indexOf(index);
+						while (result.next()) {
+							final K key = pending.get(String.valueOf(view.getObject(keyColumn)));
+							if (key == null)
+								continue;
+							final Map<String, Object> row = view.toMap();
+							if (cache != null) {
+								cache.put(index, key, row, stamp);
+								rows.put(key, new HashMap<>(row));
+							} else {
+								rows.put(key, row);
+							}
+						}
+					}
+				}
+			}
+		} catch (final SQLException e) {
+			log("getRows", "Failed to get data from database", e);
+		} finally {
+			metrics.record("getRows", table.getName(), startTime);
+		}
+		return rows;
+	}
+
+	/**
+	 * Get a row from a table mapped with the mapper registered in the table.
+	 * Typed reads always go to the database, they are not served by the row cache.
+	 *
+	 * @param <T>   Type of the mapped object
+	 * @param table Table to get the row from
+	 * @param index Column to search with.
+	 * @param value The value to search with.
+	 * @param type  Type registered with {@link Table#registerMapper(Class, RowMapper)}
+	 * @return Mapped row, NULL if not found.
+	 */
+	@Nullable
+	public <T> T getRow(final Table table, final String index, final Object value, final Class<T> type) {
+		return getRow(table, index, value, table.getMapper(type));
+	}
+
+	/**
+	 * Get a row from a table mapped to an object.
+	 *
+	 * @param <T>    Type of the mapped object
+	 * @param table  Table to get the row from
+	 * @param index  Column to search with.
+	 * @param value  The value to search with.
+	 * @param mapper Mapper for the row
+	 * @return Mapped row, NULL if not found.
+	 */
+	@Nullable
+	public <T> T getRow(final Table table, final String index, final Object value, final RowMapper<T> mapper) {
+		checkIndexed(table, index);
+		final List<T> rows = query(table.queries().selectByKey(index), mapper, value);
+		return rows.isEmpty() ? null : rows.get(0);
+	}
+
+	/**
+	 * Get all rows of a table mapped with the mapper registered in the table.
+	 *
+	 * @param <T>   Type of the mapped object
+	 * @param table Table to get rows from
+	 * @param type  Type registered with {@link Table#registerMapper(Class, RowMapper)}
+	 * @return All mapped rows, empty list if none.
+	 */
+	public <T> List<T> getAllRows(final Table table, final Class<T> type) {
+		return query(table.queries().selectAll(), table.getMapper(type));
+	}
+
+	/**
+	 * Run a query and map every row to an object.
+	 * Column indexes are resolved once for the statement, not once per row.
+	 *
+	 * @param <T>    Type of the mapped object
+	 * @param sql    SQL statement to query
+	 * @param mapper Mapper for each row
+	 * @param args   Objects for prepared statement
+	 * @return All mapped rows, empty list if none or if the query failed.
+	 */
+	public <T> List<T> query(final String sql, final RowMapper<T> mapper, final Object... args) {
+		final long startTime = System.nanoTime();
+		try (Connection connection = getReadConnection();
+				final PreparedStatement ps = connection.prepareStatement(sql)) {
+			for (int i = 0; i < args.length; i++) {
+				ps.setObject(i + 1, args[i]);
+			}
+			try (final ResultSet result = ps.executeQuery()) {
+				final List<T> rows = new ArrayList<>();
+				final RowView view = new RowView(result);
+				final RowMapper<T> rowMapper = mapper.prepare(view);
+				while (result.next()) {
+					rows.add(rowMapper.map(view));
+				}
+				return rows;
+			}
+		} catch (final SQLException e) {
+			log("query", "Failed to query database: " + sql, e);
+		} finally {
+			metrics.record("query", null, startTime);
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Get a page of rows ordered by a column, continuing after a cursor instead of skipping rows with an offset.
+	 * The cost of a page doesn't grow with how deep into the table it is.
+	 *
+	 * @param <T>      Type of the mapped object
+	 * @param query    Table and ordering to page through
+	 * @param cursor   Cursor of the previous page from {@link Page#getNextCursor()}, NULL for the first page
+	 * @param pageSize Maximum amount of rows in the page, must be positive
+	 * @param mapper   Mapper for each row
+	 * @return The page, empty if the query failed.
+	 */
+	public <T> Page<T> getPage(final PageQuery query, @Nullable final String cursor, final int pageSize, final RowMapper<T> mapper) {
+		if (pageSize <= 0)
+			throw new IllegalArgumentException("Page size must be positive, got " + pageSize);
+		final Table table = query.getTable();
+		checkIndexed(table, query.getOrderColumn());
+		final long startTime = System.nanoTime();
+		final Object[] parameters = cursor != null ? query.getCursorParameters(cursor) : new Object[0];
+		final String sql = cursor != null ? query.nextPage() : query.firstPage();
+		try (Connection connection = getReadConnection();
+				final PreparedStatement ps = connection.prepareStatement(sql)) {
+			for (int i = 0; i < parameters.length; i++) {
+				ps.setObject(i + 1, parameters[i]);
+			}
+			ps.setInt(parameters.length + 1, pageSize + 1);
+			try (final ResultSet result = ps.executeQuery()) {
+				final List<T> rows = new ArrayList<>(pageSize);
+				final RowView view = new RowView(result);
+				final RowMapper<T> rowMapper = mapper.prepare(view);
+				Object[] last = null;
+				while (result.next()) {
+					if (rows.size() == pageSize)
+						return new Page<>(rows, PageQuery.encode(last));
+					if (rows.size() == pageSize - 1) {
+						last = cursorValues(query, view);
+					}
+					rows.add(rowMapper.map(view));
+				}
+				return new Page<>(rows, null);
+			}
+		} catch (final SQLException e) {
+			log("getPage", "Failed to get page from " + table.getName(), e);
+		} finally {
+			metrics.record("getPage", table.getName(), startTime);
+		}
+		return new Page<>(Collections.emptyList(), null);
+	}
+
+	/**
+	 * Get the cursor positioned a number of rows after another cursor, without reading the rows in between.
+	 * Useful to jump to a page number when only an earlier page's cursor is known.
+	 *
+	 * @param query  Table and ordering to page through
+	 * @param cursor Cursor to start from, NULL for the start of the table
+	 * @param rows   Amount of rows to skip, must be positive
+	 * @return Cursor after the skipped rows, NULL if the table ends before them or the query failed.
+	 */
+	@Nullable
+	public String getCursor(final PageQuery query, @Nullable final String cursor, final int rows) {
+		if (rows <= 0)
+			throw new IllegalArgumentException("Rows to skip must be positive, got " + rows);
+		final long startTime = System.nanoTime();
+		final Object[] parameters = cursor != null ? query.getCursorParameters(cursor) : new Object[0];
+		try (Connection connection = getReadConnection();
+				final PreparedStatement ps = connection.prepareStatement(query.skip(cursor == null))) {
+			for (int i = 0; i < parameters.length; i++) {
+				ps.setObject(i + 1, parameters[i]);
+			}
+			ps.setInt(parameters.length + 1, rows - 1);
+			try (final ResultSet result = ps.executeQuery()) {
+				return result.next() ? PageQuery.encode(cursorValues(query, new RowView(result))) : null;
+			}
+		} catch (final SQLException e) {
+			log("getCursor", "Failed to get cursor from " + query.getTable().getName(), e);
+		} finally {
+			metrics.record("getCursor", query.getTable().getName(), startTime);
+		}
+		return null;
+	}
+
+	private static Object[] cursorValues(final PageQuery query, final RowView view) throws SQLException {
+		final Object order = view.getObject(query.getOrderColumn());
+		return query.getTieBreaker() != null ? new Object[] { order, view.getObject(query.getTieBreaker()) } : new Object[] { order };
+	}
+
 	/**
 	 * Get a ResultSet from a table.
 	 *
@@ -409,26 +1182,116 @@ public class Database {
 	 * @return All rows found, empty map if none.
 	 */
 	public List<Map<String, Object>> getAllRows(final Table table) {
-		try (Connection connection = getConnection();
-				final PreparedStatement ps = connection.prepareStatement(SQL_SELECT_ALL + table.getName() + ";")) {
+		final long startTime = System.nanoTime();
+		try (Connection connection = getReadConnection();
+				final PreparedStatement ps = connection.prepareStatement(table.queries().selectAll())) {
 			try (final ResultSet result = ps.executeQuery()) {
 				final List<Map<String, Object>> rows = new ArrayList<>();
+				final RowView view = new RowView(result);
 				while (result.next()) {
-					final ResultSetMetaData metaData = result.getMetaData();
-					final Map<String, Object> row = new HashMap<>();
-					for (int i = 1; i <= metaData.getColumnCount(); i++) {
-						row.put(metaData.getColumnName(i), result.getObject(i));
-					}
-					rows.add(row);
+					rows.add(view.toMap());
 				}
 				return rows;
 			}
 		} catch (final SQLException e) {
-			log("Failed to get data from database", e);
+			log("getAllRows", "Failed to get data from database", e);
+		} finally {
+			metrics.record("getAllRows", table.getName(), startTime);
 		}
 		return Collections.emptyList();
 	}
 
+	/**
+	 * Scan all rows of a table without loading them all into memory.
+	 * The callback receives the same reusable {@link RowView} for every row.
+	 *
+	 * @param table     Table to scan
+	 * @param fetchSize Amount of rows the driver should fetch per round trip
+	 * @param consumer  Callback for each row
+	 * @return TRUE if the whole table was scanned, FALSE if it failed
+	 */
+	public boolean forEachRow(final Table table, final int fetchSize, final RowConsumer consumer) {
+		final long startTime = System.nanoTime();
+		try (Connection connection = getReadConnection();
+				final PreparedStatement ps = prepareScan(connection, table.queries().selectAll(), fetchSize);
+				final ResultSet result = ps.executeQuery()) {
+			final RowView view = new RowView(result);
+			while (result.next()) {
+				consumer.accept(view);
+			}
+			return true;
+		} catch (final SQLException e) {
+			log("forEachRow", "Failed to scan table " + table.getName(), e);
+			return false;
+		} finally {
+			metrics.record("forEachRow", table.getName(), startTime);
+		}
+	}
+
+	/**
+	 * Stream all rows of a table without loading them all into memory.
+	 * <p>
+	 * The stream holds a connection until it is closed, so always use it in a try-with-resources block.
+	 * Every element is the same reusable {@link RowView}, map it to your own objects before collecting.
+	 * SQL errors while reading are thrown as {@link IllegalStateException}.
+	 *
+	 * @param table     Table to stream
+	 * @param fetchSize Amount of rows the driver should fetch per round trip
+	 * @return Stream of rows, empty if the query failed
+	 */
+	public Stream<RowView> streamRows(final Table table, final int fetchSize) {
+		Connection connection = null;
+		PreparedStatement ps = null;
+		ResultSet result = null;
+		final long startTime = System.nanoTime();
+		try {
+			connection = getReadConnection();
+			ps = prepareScan(connection, table.queries().selectAll(), fetchSize);
+			result = ps.executeQuery();
+			final ResultSet resultSet = result;
+			final RowView view = new RowView(resultSet);
+			final AutoCloseable[] resources = { resultSet, ps, connection };
+			return StreamSupport.stream(new Spliterators.AbstractSpliterator<RowView>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+				@Override
+				public boolean tryAdvance(final Consumer<? super RowView> action) {
+					try {
+						if (!resultSet.next())
+							return false;
+					} catch (final SQLException e) {
+						throw new IllegalStateException("Failed to read row from " + table.getName(), e);
+					}
+					action.accept(view);
+					return true;
+				}
+			}, false).onClose(() -> closeQuietly(resources));
+		} catch (final SQLException e) {
+			closeQuietly(result, ps, connection);
+			log("streamRows", "Failed to stream table " + table.getName(), e);
+			return Stream.empty();
+		} finally {
+			metrics.record("streamRows", table.getName(), startTime);
+		}
+	}
+
+	private PreparedStatement prepareScan(final Connection connection, final String sql, final int fetchSize) throws SQLException {
+		final PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		// MySQL Connector/J only streams rows instead of buffering the whole result with this fetch size
+		ps.setFetchSize(databaseType == DatabaseType.MYSQL ? Integer.MIN_VALUE : fetchSize);
+		return ps;
+	}
+
+	private void closeQuietly(final AutoCloseable... resources) {
+		for (final AutoCloseable resource : resources) {
+			if (resource == null)
+				continue;
+			try {
+				resource.close();
+			} catch (final Exception e) {
+				log("close", "Failed to close database resource", e);
+			}
+		}
+	}
+
 	/**
 	 * Check if a value exists in the database
 	 *
@@ -438,18 +1301,79 @@ public class Database {
 	 * @return TRUE if found, FALSE if not
 	 */
 	public boolean contains(final Table table, final String index, final Object value) {
-		try (Connection connection = getConnection();
-				PreparedStatement ps = connection.prepareStatement(SQL_SELECT_ALL + table.getName() + SQL_WHERE + index + "=?")) {
-			ps.setObject(1, value);
+		checkIndexed(table, index);
+		final RowCache cache = table.getRowCache();
+		if (cache != null && cache.get(index, value) != null)
+			return true;
+		final long startTime = System.nanoTime();
+		try (Connection connection = getReadConnection();
+				PreparedStatement ps = connection.prepareStatement(table.queries().exists(index))) {
+			bind(ps, 1, table.getColumn(index), value);
 			try (ResultSet result = ps.executeQuery()) {
 				return result.next();
 			}
 		} catch (final SQLException e) {
-			log("Failed to check database", e);
+			log("contains", "Failed to check database", e);
 			return false;
+		} finally {
+			metrics.record("contains", table.getName(), startTime);
 		}
 	}
 
+	/**
+	 * Check which of the given values exist in the database.
+	 * Values are checked in chunks with an IN list, so many keys only take a few round trips.
+	 *
+	 * @param <K>    Type of the values
+	 * @param table  Table to check from.
+	 * @param index  Index of the values
+	 * @param values Values of the index
+	 * @return The values that were found, empty if none or if the query failed
+	 */
+	public <K> Set<K> containsAll(final Table table, final String index, final Collection<K> values) {
+		checkIndexed(table, index);
+		final Set<K> present = new HashSet<>();
+		final RowCache cache = table.getRowCache();
+		// keyed by string so ids read back as a different type (Integer/Long, UUID/String) still match
+		final Map<String, K> pending = new LinkedHashMap<>();
+		for (final K value : values) {
+			if (cache != null && cache.get(index, value) != null) {
+				present.add(value);
+			} else {
+				pending.put(String.valueOf(value), value);
+			}
+		}
+		if (pending.isEmpty())
+			return present;
+
+		final List<K> keys = new ArrayList<>(pending.values());
+		final int chunkSize = getInChunkSize();
+		final long startTime = System.nanoTime();
+		try (Connection connection = getReadConnection()) {
+			for (int start = 0; start < keys.size(); start += chunkSize) {
+				final List<K> chunk = keys.subList(start, Math.min(start + chunkSize, keys.size()));
+				final int parameterCount = getInParameterCount(chunk.size(), chunkSize);
+				try (PreparedStatement ps = connection.prepareStatement(table.queries().keysIn(index, parameterCount))) {
+					bindInList(ps, chunk, parameterCount);
+					try (ResultSet result = ps.executeQuery()) {
+						while (result.next()) {
+							final K key = pending.get(String.valueOf(result.getObject(1)));
+							if (key != null) {
+								present.add(key);
+							}
+						}
+					}
+				}
+			}
+		} catch (final SQLException e) {
+			log("containsAll", "Failed to check database", e);
+			return Collections.emptySet();
+		} finally {
+			metrics.record("containsAll", table.getName(), startTime);
+		}
+		return present;
+	}
+
 	/**
 	 * Update a value in the database
 	 *
@@ -462,40 +1386,81 @@ public class Database {
 	 */
 	public void update(final Table table, final String index, final String toUpdate, final Object indexValue, final Object updateValue,
 			final String extra) {
-		try (Connection connection = getConnection()) {
-			final String update = extra.isEmpty() ? "?" : updateValue + extra;
-			try (PreparedStatement ps = connection
-					.prepareStatement("UPDATE " + table.getName() + " SET " + toUpdate + "=" + update + SQL_WHERE + index + "=?;")) {
-				if (extra.isEmpty()) {
-					ps.setObject(1, updateValue);
-					ps.setObject(2, indexValue);
-				} else {
-					ps.setObject(1, indexValue);
+		checkIndexed(table, index);
+		// expressions like "kills" + "+1" are part of the statement, only plain updates can use the cached statement
+		final String sql = extra.isEmpty() ? table.queries().update(index, Collections.singletonList(toUpdate))
+				: "UPDATE " + table.getName() + " SET " + toUpdate + "=" + updateValue + extra + " WHERE " + index + "=?";
+		final long startTime = System.nanoTime();
+		try {
+			write(connection -> {
+				try (PreparedStatement ps = connection.prepareStatement(sql)) {
+					if (extra.isEmpty()) {
+						bind(ps, 1, table.getColumn(toUpdate), updateValue);
+						bind(ps, 2, table.getColumn(index), indexValue);
+					} else {
+						bind(ps, 1, table.getColumn(index), indexValue);
+					}
+					return ps.executeUpdate();
 				}
-				ps.executeUpdate();
-			}
+			});
 		} catch (final SQLException e) {
-			log("Failed to update database", e);
+			log("update", "Failed to update database", e);
+		} finally {
+			metrics.record("update", table.getName(), startTime);
+			invalidate(table, index, indexValue);
 		}
 	}
 
 	/**
-	 * Update a value in the database
+	 * Update a value in the database.
+	 * The statement may change any row, so if the table has a {@link RowCache} it is cleared completely and, when
+	 * other servers listen to the table, a change of the whole table is published to them. For frequent updates of a
+	 * single row, like counters, use {@link #updateRow(Table, String, Object, String, Object...)} instead.
 	 *
 	 * @param table Table to update
 	 * @param sql   SQL statement to update
 	 * @param args  Objects for prepared statement
 	 */
 	public int update(final Table table, final String sql, final Object... args) {
-		try (Connection connection = getConnection();
-				final PreparedStatement ps = connection.prepareStatement(sql)) {
-			for (int i = 0; i < args.length; i++) {
-				final Object object = args[i];
-				ps.setObject(i + 1, object);
-			}
-			return ps.executeUpdate();
+		return executeUpdate(table, sql, args, () -> invalidateAll(table));
+	}
+
+	/**
+	 * Update a single row in the database with a custom statement, like {@code UPDATE players SET kills = kills + 1
+	 * WHERE uuid = ?}. Only the cached row with the index value is invalidated.
+	 *
+	 * @param table      Table to update
+	 * @param index      Index the statement selects the row with
+	 * @param indexValue Value of the index of the only row the statement changes
+	 * @param sql        SQL statement to update
+	 * @param args       Objects for prepared statement
+	 * @return Amount of updated rows
+	 */
+	public int updateRow(final Table table, final String index, final Object indexValue, final String sql, final Object... args) {
+		return executeUpdate(table, sql, args, () -> invalidate(table, index, indexValue));
+	}
+
+	private int executeUpdate(final Table table, final String sql, final Object[] args, final Runnable invalidation) {
+		final long startTime = System.nanoTime();
+		try {
+			return write(connection -> {
+				try (PreparedStatement ps = connection.prepareStatement(sql)) {
+					for (int i = 0; i < args.length; i++) {
+						final Object object = args[i];
+						ps.setObject(i + 1, object);
+					}
+					return ps.executeUpdate();
+				}
+			});
 		} catch (final SQLException e) {
-			log("Failed to get value from database", e);
+			log("update", "Failed to get value from database", e);
+		} finally {
+			metrics.record("update", table.getName(), startTime);
+			invalidation.run();
+			// the statement may change any table, reload the whole schema on the next lookup
+			if (SCHEMA_STATEMENT.matcher(sql).lookingAt()) {
+				schema.refresh();
+			}
 		}
 
 		return 0;
@@ -525,29 +1490,23 @@ public class Database {
 	 */
 	public boolean updateValues(final Table table, final String index, final Object indexValue, final Collection<String> columns,
 			final Collection<Object> values) {
-		try (Connection connection = getConnection()) {
-			final StringBuilder updateString = new StringBuilder();
-			int i = 0;
-			for (final String col : columns) {
-				updateString.append(col + "=?");
-				i++;
-				if (i < columns.size()) {
-					updateString.append(",");
+		checkIndexed(table, index);
+		final long startTime = System.nanoTime();
+		try {
+			write(connection -> {
+				try (PreparedStatement ps = connection.prepareStatement(table.queries().update(index, columns))) {
+					bindRow(ps, table.resolveColumns(columns), values);
+					bind(ps, values.size() + 1, table.getColumn(index), indexValue);
+					return ps.executeUpdate();
 				}
-			}
-			try (PreparedStatement ps = connection
-					.prepareStatement("UPDATE " + table.getName() + " SET " + updateString + SQL_WHERE + index + "=?;")) {
-				i = 0;
-				for (final Object object : values) {
-					ps.setObject(++i, object);
-				}
-				ps.setObject(values.size() + 1, indexValue);
-				ps.executeUpdate();
-			}
+			});
 			return true;
 		} catch (final SQLException e) {
-			log("Failed to update database", e);
+			log("update", "Failed to update database", e);
 			return false;
+		} finally {
+			metrics.record("update", table.getName(), startTime);
+			invalidate(table, index, indexValue);
 		}
 	}
 
@@ -559,12 +1518,20 @@ public class Database {
 	 * @param value Value to search with.
 	 */
 	public void remove(final Table table, final String index, final Object value) {
-		try (Connection connection = getConnection();
-				PreparedStatement ps = connection.prepareStatement("DELETE FROM " + table.getName() + SQL_WHERE + index + "=?;")) {
-			ps.setObject(1, value);
-			ps.executeUpdate();
+		checkIndexed(table, index);
+		final long startTime = System.nanoTime();
+		try {
+			write(connection -> {
+				try (PreparedStatement ps = connection.prepareStatement(table.queries().delete(index))) {
+					bind(ps, 1, table.getColumn(index), value);
+					return ps.executeUpdate();
+				}
+			});
 		} catch (final SQLException e) {
-			log("Failed to remove from database", e);
+			log("remove", "Failed to remove from database", e);
+		} finally {
+			metrics.record("remove", table.getName(), startTime);
+			invalidate(table, index, value);
 		}
 	}
 
@@ -577,7 +1544,8 @@ public class Database {
 	 * @return Count result, 0 if error or no results
 	 */
 	public int executeCountQuery(final Table table, final String where, final Object... args) {
-		try (final Connection connection = getConnection();
+		final long startTime = System.nanoTime();
+		try (final Connection connection = getReadConnection();
 				final PreparedStatement ps = connection.prepareStatement("SELECT COUNT(*) FROM " + table.getName() + " " + where)) {
 			for (int i = 0; i < args.length; i++) {
 				ps.setObject(i + 1, args[i]);
@@ -588,33 +1556,282 @@ public class Database {
 				}
 			}
 		} catch (final SQLException e) {
-			log("Failed to execute count query: " + where, e);
+			log("count", "Failed to execute count query: " + where, e);
+		} finally {
+			metrics.record("count", table.getName(), startTime);
 		}
 		return 0;
 	}
 
+	/**
+	 * @return Channel invalidating cached rows changed by other servers, NULL unless enabled with
+	 *         {@link DatabaseConfigBuilder#invalidationInterval(long)} on MySQL
+	 */
+	@Nullable
+	public InvalidationChannel getInvalidationChannel() {
+		return invalidationChannel;
+	}
+
 	@Nullable
 	public Table getTable(final String tableName) {
 		return tableRegister.get(tableName);
 	}
 
+	/**
+	 * Run work that writes to the database.
+	 * On SQLite the work is queued to the writer thread and committed together with other queued writes,
+	 * otherwise it runs on a pooled connection in auto-commit mode. Either way the work must not close the connection.
+	 *
+	 * @param <T>  Return type of the work
+	 * @param work Work to do with the connection
+	 * @return Result of the work
+	 * @throws SQLException if the work failed
+	 */
+	public <T> T write(final SQLFunction<Connection, T> work) throws SQLException {
+		awaitReady();
+		if (writer != null)
+			return writer.execute(work);
+		try (Connection connection = primaryConnection()) {
+			return work.apply(connection);
+		} finally {
+			replicaRouter.recordWrite();
+		}
+	}
+
 	/**
 	 * Returns the database connection.
+	 * On SQLite there is a single write connection shared with the writer thread, prefer {@link #write(SQLFunction)}
+	 * and don't call other methods of this class that write while holding it.
 	 *
 	 * @return Database connection.
 	 * @throws SQLException if a database access error occurs
 	 */
 	public Connection getConnection() throws SQLException {
-		return connectionPool.getConnection();
+		awaitReady();
+		return primaryConnection();
+	}
+
+	/**
+	 * Returns a connection for queries that don't write.
+	 * On SQLite this comes from a separate pool of read-only WAL connections, so reads never wait for the
+	 * single write connection. On MySQL with replicas configured it comes from a replica, unless this database
+	 * wrote within the read-your-writes window. Otherwise it is the same as {@link #getConnection()}.
+	 *
+	 * @return Database connection.
+	 * @throws SQLException if a database access error occurs
+	 */
+	public Connection getReadConnection() throws SQLException {
+		awaitReady();
+		if (readPool != null)
+			return readPool.getConnection();
+		final HikariDataSource replica = replicaRouter.select();
+		if (replica == null)
+			return primaryConnection();
+		try {
+			return replica.getConnection();
+		} catch (final SQLException e) {
+			Log.warning("Failed to get a connection from " + replica.getPoolName() + ", reading from the primary instead");
+			return connectionPool.getConnection();
+		}
+	}
+
+	/**
+	 * An in-memory database has a single connection, so a thread that already holds it, like a converter reading
+	 * the old table or a {@link #forEachRow} consumer, gets it again instead of waiting for itself until the pool
+	 * times out. Closing the nested connection does nothing, the outermost one returns it to the pool.
+	 */
+	private Connection primaryConnection() throws SQLException {
+		if (memoryUrl == null)
+			return connectionPool.getConnection();
+		final Connection held = heldMemoryConnection.get();
+		if (held != null && !held.isClosed())
+			return proxy(held, () -> {
+			});
+		final Connection connection = connectionPool.getConnection();
+		heldMemoryConnection.set(connection);
+		return proxy(connection, () -> {
+			if (heldMemoryConnection.get() == connection) {
+				heldMemoryConnection.remove();
+			}
+			connection.close();
+		});
+	}
+
+	private static Connection proxy(final Connection connection, final SQLRunnable onClose) {
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+			if (method.getName().equals("close") && method.getParameterCount() == 0) {
+				onClose.run();
+				return null;
+			}
+			try {
+				return method.invoke(connection, args);
+			} catch (final InvocationTargetException e) {
+				throw e.getCause();
+			}
+		});
+	}
+
+	@FunctionalInterface
+	private interface SQLRunnable {
+		void run() throws SQLException;
+	}
+
+	/**
+	 * Run reads on the primary even when replicas are configured, for reads that must see the latest writes
+	 * of other threads.
+	 *
+	 * @param <T>  Return type of the work
+	 * @param work Reads to run
+	 * @return Result of the work
+	 */
+	public <T> T readFromPrimary(final Supplier<T> work) {
+		return replicaRouter.readFromPrimary(work);
+	}
+
+	/**
+	 * Get the asynchronous view of this database.
+	 * All operations of the returned instance run on the database executor instead of the calling thread.
+	 *
+	 * @return AsyncDatabase backed by this database
+	 */
+	public AsyncDatabase async() {
+		return asyncDatabase;
+	}
+
+	/**
+	 * Get the cached schema of this database, loaded on first use.
+	 *
+	 * @return Schema catalog of this database
+	 */
+	public SchemaCatalog getSchema() {
+		return schema;
+	}
+
+	/**
+	 * Get the runtime statistics of this database, like operation latencies and pool usage.
+	 *
+	 * @return Metrics of this database
+	 */
+	public DatabaseMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Enable a write-behind queue for this database.
+	 * Calling this again returns the already enabled queue.
+	 *
+	 * @param maxPending    Amount of pending rows that triggers a flush
+	 * @param flushInterval Maximum time between flushes
+	 * @param unit          Time unit of the flush interval
+	 * @return The write-behind queue
+	 */
+	public synchronized WriteBehindQueue enableWriteBehind(final int maxPending, final long flushInterval, final TimeUnit unit) {
+		if (writeBehindQueue == null) {
+			writeBehindQueue = new WriteBehindQueue(this, maxPending, flushInterval, unit);
+		}
+		return writeBehindQueue;
+	}
+
+	/**
+	 * Create an append-only log table split per day or month, see {@link LogTable}.
+	 * Calling this again with the same name returns the existing log table.
+	 *
+	 * @param name      Base name of the tables
+	 * @param period    Period covered by each table
+	 * @param retention Amount of periods to keep, including the current one
+	 * @param columns   Columns of the tables
+	 * @return The log table
+	 */
+	public synchronized LogTable logTable(final String name, final LogTable.Period period, final int retention, final Column... columns) {
+		return logTables.computeIfAbsent(name, n -> new LogTable(this, n, period, retention, columns));
+	}
+
+	/**
+	 * @return The write-behind queue, or null if it was never enabled
+	 */
+	@Nullable
+	public WriteBehindQueue getWriteBehindQueue() {
+		return writeBehindQueue;
+	}
+
+	/**
+	 * Runs a task on the database executor.
+	 * The executor is bounded to the size of the connection pool, so tasks queue up instead of
+	 * piling up threads waiting for a connection.
+	 *
+	 * @param <T>  The return type of the task
+	 * @param task The task to run
+	 * @return A CompletableFuture that will be completed with the task's result
+	 */
+	public <T> CompletableFuture<T> supplyAsync(final Supplier<T> task) {
+		try {
+			return CompletableFuture.supplyAsync(task, executor);
+		} catch (final RejectedExecutionException e) {
+			return CompletableFuture.failedFuture(new IllegalStateException("Database is closed", e));
+		}
+	}
+
+	/**
+	 * Runs a task on the database executor.
+	 *
+	 * @param task The task to run
+	 * @return A CompletableFuture that will be completed when the task finishes
+	 */
+	public CompletableFuture<Void> runAsync(final Runnable task) {
+		try {
+			return CompletableFuture.runAsync(task, executor);
+		} catch (final RejectedExecutionException e) {
+			return CompletableFuture.failedFuture(new IllegalStateException("Database is closed", e));
+		}
 	}
 
 	/**
 	 * Closes the database.
+	 * Pending asynchronous operations are given a few seconds to finish and the write-behind queue
+	 * is flushed before the pool is closed.
 	 */
 	public void close() {
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+				Log.warning("Timed out waiting for pending database operations to finish");
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (this) {
+			logTables.values().forEach(LogTable::close);
+		}
+		if (invalidationChannel != null) {
+			invalidationChannel.close();
+		}
+		if (snapshotTask != null) {
+			snapshotTask.cancel(false);
+		}
+		if (writeBehindQueue != null) {
+			writeBehindQueue.close();
+		}
+		// after everything queued was written
+		if (snapshotFile != null && isReady()) {
+			snapshot();
+		}
+		if (writer != null) {
+			writer.close();
+		}
 		setLogLevel(Level.WARN);
+		if (readPool != null) {
+			readPool.close();
+		}
+		replicaPools.forEach(HikariDataSource::close);
 		connectionPool.close();
 		setLogLevel(Level.INFO);
+		if (memoryAnchor != null) {
+			try {
+				memoryAnchor.close();
+			} catch (final SQLException e) {
+				log("close", "Failed to close in-memory database", e);
+			}
+		}
 	}
 
 	public DatabaseType getDatabaseType() {
@@ -626,18 +1843,72 @@ public class Database {
 		ctx.getConfiguration().getLoggerConfig("com.zaxxer.hikari.HikariDataSource").setLevel(level);
 	}
 
-	private StringBuilder getValueParameteres(final Collection<Object> values) {
-		final StringBuilder valueParams = new StringBuilder();
-		for (int i = 0; i < values.size(); i++) {
-			valueParams.append("?");
-			if (i < values.size() - 1) {
-				valueParams.append(",");
-			}
+	private int getInChunkSize() {
+		// SQLite builds before 3.32 only allow 999 parameters per statement
+		return databaseType == DatabaseType.SQLITE ? 512 : 2048;
+	}
+
+	/**
+	 * Round the amount of parameters of an IN list up to a power of two, so only a handful of
+	 * different statements are ever prepared and the statement cache keeps hitting
+	 */
+	private static int getInParameterCount(final int size, final int chunkSize) {
+		if (size <= 1)
+			return 1;
+		return Math.min(chunkSize, Integer.highestOneBit(size - 1) << 1);
+	}
+
+	private static void bindInList(final PreparedStatement ps, final List<?> values, final int parameterCount) throws SQLException {
+		for (int i = 0; i < parameterCount; i++) {
+			// padding repeats the last value, duplicates in an IN list don't change the result
+			ps.setObject(i + 1, values.get(Math.min(i, values.size() - 1)));
+		}
+	}
+
+	void invalidate(final Table table, final String index, final Object value) {
+		if (table == null)
+			return;
+		final RowCache cache = table.getRowCache();
+		if (cache != null) {
+			cache.invalidate(index, value);
+		}
+		if (invalidationChannel != null && invalidationChannel.isPublished(table)) {
+			invalidationChannel.publish(table, index, value);
+		}
+	}
+
+	void invalidateRows(final Table table, final String index, final Collection<String> columns, final Collection<Collection<Object>> rows) {
+		if (table.getRowCache() == null && (invalidationChannel == null || !invalidationChannel.isPublished(table)))
+			return;
+		int position = 0;
+		for (final String column : columns) {
+			if (column.equalsIgnoreCase(index))
+				break;
+			position++;
+		}
+		if (position == columns.size()) {
+			invalidateAll(table);
+			return;
+		}
+		for (final Collection<Object> row : rows) {
+			invalidate(table, index, row instanceof final List<Object> list ? list.get(position) : new ArrayList<>(row).get(position));
+		}
+	}
+
+	void invalidateAll(final Table table) {
+		if (table == null)
+			return;
+		final RowCache cache = table.getRowCache();
+		if (cache != null) {
+			cache.invalidateAll();
+		}
+		if (invalidationChannel != null && invalidationChannel.isPublished(table)) {
+			invalidationChannel.publish(table, null, null);
 		}
-		return valueParams;
 	}
 
-	private void log(final String message, final Throwable t) {
+	private void log(final String operation, final String message, final Throwable t) {
+		metrics.recordFailure(operation);
 		Log.severe(message, t);
 	}
 
@@ -1,20 +1,44 @@
 package me.chancesd.sdutils.database;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.Nullable;
 
 import me.chancesd.sdutils.utils.Log;
 
 public class DatabaseConfigBuilder {
 
 	public enum DatabaseType {
-		SQLITE, MYSQL;// MARIADB; spigot/paper dont have the driver for this and don't want to shade it for now
+		SQLITE, MYSQL, // MARIADB; spigot/paper dont have the driver for this and don't want to shade it for now
+		/**
+		 * SQLite kept in memory, optionally snapshotted to a file. It uses the SQLite dialect, so
+		 * {@link Database#getDatabaseType()} reports {@link #SQLITE} for it.
+		 */
+		MEMORY
+	}
+
+	public enum ReplicaSelection {
+		/** Use the replicas in turn */
+		ROUND_ROBIN,
+		/** Use the replica with the least connections in use */
+		LEAST_BUSY
 	}
 
 	private static final String DATABASE_FIELD = "Database";
 	private static final String USERNAME_FIELD = "Username";
 	private static final String PASSWORD_FIELD = "Password";
+	private static final String POOL_SECTION = "Pool";
+	private static final String SLOW_QUERY_FIELD = "Slow Query Threshold";
+	private static final String REPLICAS_FIELD = "Replicas";
+	private static final String REPLICA_SELECTION_FIELD = "Replica Selection";
+	private static final String INVALIDATION_INTERVAL_FIELD = "Invalidation Interval";
+	private static final String SNAPSHOT_INTERVAL_FIELD = "Snapshot Interval";
 	private String driver;
 	private String url;
 	private String database;
@@ -22,6 +46,21 @@ public class DatabaseConfigBuilder {
 	private String password;
 	private String file;
 	private DatabaseType type;
+	private int batchSize = 1000;
+	private int poolSize = -1;
+	private int minimumIdle = -1;
+	private long connectionTimeout = -1;
+	private long idleTimeout = -1;
+	private long maxLifetime = -1;
+	private long leakDetectionThreshold = -1;
+	private long slowQueryThreshold = -1;
+	private boolean asyncStartup;
+	private final List<String> replicas = new ArrayList<>();
+	private ReplicaSelection replicaSelection = ReplicaSelection.ROUND_ROBIN;
+	private long readYourWritesWindow = 2000;
+	private long invalidationInterval = -1;
+	private long snapshotInterval;
+	private final Map<String, String> dataSourceProperties = new LinkedHashMap<>();
 
 	/**
 	 * Default constructor, no settings.
@@ -43,7 +82,11 @@ public class DatabaseConfigBuilder {
 			driver("com.mysql.jdbc.Driver").type(DatabaseType.MYSQL).url(newURL).database(section.getString(DATABASE_FIELD))
 					.user(section.getString(USERNAME_FIELD))
 					.password(section.getString(PASSWORD_FIELD));
+			replicas(section);
+			invalidationInterval(section.getLong(INVALIDATION_INTERVAL_FIELD, invalidationInterval));
 		}
+		pool(section.getConfigurationSection(POOL_SECTION));
+		slowQueryThreshold(section.getLong(SLOW_QUERY_FIELD, slowQueryThreshold));
 	}
 
 	/**
@@ -74,9 +117,29 @@ public class DatabaseConfigBuilder {
 			driver("com.mysql.jdbc.Driver").type(DatabaseType.MYSQL).url(newURL).database(mysql.getString(DATABASE_FIELD))
 					.user(mysql.getString(USERNAME_FIELD))
 					.password(mysql.getString(PASSWORD_FIELD));
+			replicas(mysql);
+			invalidationInterval(mysql.getLong(INVALIDATION_INTERVAL_FIELD, invalidationInterval));
+		} else if (dbType == DatabaseType.MEMORY) {
+			// without a snapshot interval the database starts empty every time
+			final long interval = section.getLong(SNAPSHOT_INTERVAL_FIELD, -1);
+			memory(interval >= 0 ? backup : null).snapshotInterval(Math.max(0, interval));
 		} else {
 			driver("org.sqlite.SQLiteDataSource").type(DatabaseType.SQLITE).sqlite(backup);
 		}
+		pool(section.getConfigurationSection(POOL_SECTION));
+		slowQueryThreshold(section.getLong(SLOW_QUERY_FIELD, slowQueryThreshold));
+	}
+
+	private void replicas(final ConfigurationSection section) {
+		section.getStringList(REPLICAS_FIELD).forEach(this::replica);
+		final String selection = section.getString(REPLICA_SELECTION_FIELD);
+		if (selection != null) {
+			try {
+				replicaSelection(ReplicaSelection.valueOf(selection.toUpperCase().replace(' ', '_')));
+			} catch (final IllegalArgumentException e) {
+				Log.severe("The replica selection you specified in the config does not exist: " + selection + ". Defaulting to round robin");
+			}
+		}
 	}
 
 	private static DatabaseType getDBTypeFrom(final ConfigurationSection section) {
@@ -122,11 +185,229 @@ public class DatabaseConfigBuilder {
 		return this;
 	}
 
+	/**
+	 * Keep the database in memory instead of in a file. Writes never wait on the disk, and the data is lost when the
+	 * database closes unless a snapshot file is set.
+	 * <p>
+	 * Reads and writes take turns on a single connection, so reads only ever see committed data. Work on the thread that
+	 * holds it, like writes from a {@link Database#forEachRow} consumer or a {@link Converter}, reuses the connection,
+	 * other threads wait until it is returned.
+	 *
+	 * @param snapshot File the database is restored from when it starts and copied to when it closes, NULL to not keep
+	 *                 the data
+	 * @return this
+	 */
+	public DatabaseConfigBuilder memory(@Nullable final File snapshot) {
+		driver("org.sqlite.SQLiteDataSource").type(DatabaseType.MEMORY);
+		this.file = snapshot != null ? snapshot.getPath() : null;
+		return this;
+	}
+
+	/**
+	 * Also snapshot an in-memory database periodically, so a crash loses at most this much data.
+	 *
+	 * @param newSnapshotInterval Interval in milliseconds, 0 to only snapshot when the database closes
+	 * @return this
+	 */
+	public DatabaseConfigBuilder snapshotInterval(final long newSnapshotInterval) {
+		this.snapshotInterval = newSnapshotInterval;
+		return this;
+	}
+
 	public DatabaseConfigBuilder type(final DatabaseType newType) {
 		this.type = newType;
 		return this;
 	}
 
+	/**
+	 * Set how many rows batch operations execute per transaction
+	 *
+	 * @param newBatchSize Rows per batch chunk
+	 * @return this
+	 */
+	public DatabaseConfigBuilder batchSize(final int newBatchSize) {
+		if (newBatchSize <= 0)
+			throw new IllegalArgumentException("Batch size must be positive");
+		this.batchSize = newBatchSize;
+		return this;
+	}
+
+	/**
+	 * Read connection pool settings from a config section.
+	 * Missing keys keep their current value.
+	 *
+	 * <pre>
+	 * Pool:
+	 *   Maximum Pool Size: 10
+	 *   Minimum Idle: 10
+	 *   Connection Timeout: 30000
+	 *   Idle Timeout: 600000
+	 *   Max Lifetime: 1800000
+	 *   Leak Detection Threshold: 0
+	 *   Properties:
+	 *     useServerPrepStmts: true
+	 * </pre>
+	 *
+	 * @param section Pool configuration section, ignored if null
+	 * @return this
+	 */
+	public DatabaseConfigBuilder pool(final ConfigurationSection section) {
+		if (section == null)
+			return this;
+		poolSize(section.getInt("Maximum Pool Size", poolSize));
+		minimumIdle(section.getInt("Minimum Idle", minimumIdle));
+		connectionTimeout(section.getLong("Connection Timeout", connectionTimeout));
+		idleTimeout(section.getLong("Idle Timeout", idleTimeout));
+		maxLifetime(section.getLong("Max Lifetime", maxLifetime));
+		leakDetectionThreshold(section.getLong("Leak Detection Threshold", leakDetectionThreshold));
+		final ConfigurationSection properties = section.getConfigurationSection("Properties");
+		if (properties != null) {
+			for (final String key : properties.getKeys(false)) {
+				dataSourceProperty(key, properties.getString(key));
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Set the maximum amount of pooled connections.
+	 * On SQLite writes always use a single connection, this sets the amount of read connections.
+	 *
+	 * @param newPoolSize Maximum pool size, -1 for the default
+	 * @return this
+	 */
+	public DatabaseConfigBuilder poolSize(final int newPoolSize) {
+		this.poolSize = newPoolSize;
+		return this;
+	}
+
+	/**
+	 * @param newMinimumIdle Minimum idle connections kept in the pool, -1 for the default
+	 * @return this
+	 */
+	public DatabaseConfigBuilder minimumIdle(final int newMinimumIdle) {
+		this.minimumIdle = newMinimumIdle;
+		return this;
+	}
+
+	/**
+	 * @param newConnectionTimeout Milliseconds to wait for a connection from the pool, -1 for the default
+	 * @return this
+	 */
+	public DatabaseConfigBuilder connectionTimeout(final long newConnectionTimeout) {
+		this.connectionTimeout = newConnectionTimeout;
+		return this;
+	}
+
+	/**
+	 * @param newIdleTimeout Milliseconds a connection may sit idle before it is closed, -1 for the default
+	 * @return this
+	 */
+	public DatabaseConfigBuilder idleTimeout(final long newIdleTimeout) {
+		this.idleTimeout = newIdleTimeout;
+		return this;
+	}
+
+	/**
+	 * @param newMaxLifetime Maximum lifetime of a connection in milliseconds, -1 for the default
+	 * @return this
+	 */
+	public DatabaseConfigBuilder maxLifetime(final long newMaxLifetime) {
+		this.maxLifetime = newMaxLifetime;
+		return this;
+	}
+
+	/**
+	 * @param newLeakDetectionThreshold Milliseconds a connection may be out of the pool before a leak is logged,
+	 *                                  0 to disable, -1 for the default
+	 * @return this
+	 */
+	public DatabaseConfigBuilder leakDetectionThreshold(final long newLeakDetectionThreshold) {
+		this.leakDetectionThreshold = newLeakDetectionThreshold;
+		return this;
+	}
+
+	/**
+	 * Set a driver property, like {@code useServerPrepStmts} for MySQL.
+	 * Overrides the defaults set by {@link Database}.
+	 *
+	 * @param key   Property name
+	 * @param value Property value
+	 * @return this
+	 */
+	public DatabaseConfigBuilder dataSourceProperty(final String key, final String value) {
+		dataSourceProperties.put(key, value);
+		return this;
+	}
+
+	/**
+	 * Log a warning for every database operation that takes at least this long.
+	 *
+	 * @param newSlowQueryThreshold Threshold in milliseconds, -1 to disable
+	 * @return this
+	 */
+	public DatabaseConfigBuilder slowQueryThreshold(final long newSlowQueryThreshold) {
+		this.slowQueryThreshold = newSlowQueryThreshold;
+		return this;
+	}
+
+	/**
+	 * Start the database in the background instead of blocking the constructor.
+	 * Connecting, creating registered tables and running conversions then happen on a separate thread,
+	 * see {@link Database#ready()}.
+	 *
+	 * @param newAsyncStartup Whether to start asynchronously
+	 * @return this
+	 */
+	public DatabaseConfigBuilder asyncStartup(final boolean newAsyncStartup) {
+		this.asyncStartup = newAsyncStartup;
+		return this;
+	}
+
+	/**
+	 * Add a MySQL read replica. Reads are spread over the replicas while writes stay on the primary.
+	 *
+	 * @param host Host and port of the replica, like {@code replica1:3306}
+	 * @return this
+	 */
+	public DatabaseConfigBuilder replica(final String host) {
+		replicas.add(host);
+		return this;
+	}
+
+	/**
+	 * @param newReplicaSelection How a replica is picked for each read
+	 * @return this
+	 */
+	public DatabaseConfigBuilder replicaSelection(final ReplicaSelection newReplicaSelection) {
+		this.replicaSelection = newReplicaSelection;
+		return this;
+	}
+
+	/**
+	 * Set how long reads stay on the primary after a write, so reads see the writes of this server
+	 * even when the replicas lag behind.
+	 *
+	 * @param newReadYourWritesWindow Time in milliseconds, 0 to always read from replicas
+	 * @return this
+	 */
+	public DatabaseConfigBuilder readYourWritesWindow(final long newReadYourWritesWindow) {
+		this.readYourWritesWindow = newReadYourWritesWindow;
+		return this;
+	}
+
+	/**
+	 * Invalidate cached rows changed by other servers sharing the same MySQL database, by polling a change log
+	 * table at this interval. See {@link InvalidationChannel}.
+	 *
+	 * @param newInvalidationInterval Interval in milliseconds, -1 to disable
+	 * @return this
+	 */
+	public DatabaseConfigBuilder invalidationInterval(final long newInvalidationInterval) {
+		this.invalidationInterval = newInvalidationInterval;
+		return this;
+	}
+
 	public String getFile() {
 		return file;
 	}
@@ -154,4 +435,64 @@ public class DatabaseConfigBuilder {
 	public DatabaseType getType() {
 		return type;
 	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	public int getMinimumIdle() {
+		return minimumIdle;
+	}
+
+	public long getConnectionTimeout() {
+		return connectionTimeout;
+	}
+
+	public long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	public long getMaxLifetime() {
+		return maxLifetime;
+	}
+
+	public long getLeakDetectionThreshold() {
+		return leakDetectionThreshold;
+	}
+
+	public long getSlowQueryThreshold() {
+		return slowQueryThreshold;
+	}
+
+	public boolean isAsyncStartup() {
+		return asyncStartup;
+	}
+
+	public long getSnapshotInterval() {
+		return snapshotInterval;
+	}
+
+	public long getInvalidationInterval() {
+		return invalidationInterval;
+	}
+
+	public List<String> getReplicas() {
+		return Collections.unmodifiableList(replicas);
+	}
+
+	public ReplicaSelection getReplicaSelection() {
+		return replicaSelection;
+	}
+
+	public long getReadYourWritesWindow() {
+		return readYourWritesWindow;
+	}
+
+	public Map<String, String> getDataSourceProperties() {
+		return Collections.unmodifiableMap(dataSourceProperties);
+	}
 }
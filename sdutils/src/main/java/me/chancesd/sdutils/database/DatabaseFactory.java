@@ -1,6 +1,7 @@
 package me.chancesd.sdutils.database;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.bukkit.configuration.Configuration;
@@ -8,7 +9,13 @@ import org.bukkit.plugin.java.JavaPlugin;
 
 import com.google.common.base.Preconditions;
 
+import me.chancesd.sdutils.utils.Log;
+
 public class DatabaseFactory {
+	// converters that finished in a pass that did not bump the database version yet
+	static final Table CONVERSIONS = new Table("sdutils_conversions",
+			Column.of("converter", ColumnType.VARCHAR).length(255).primaryKey(),
+			Column.of("completed", ColumnType.BIGINT).notNull());
 	private final JavaPlugin plugin;
 	private final List<Converter> converters = new ArrayList<>();
 
@@ -39,11 +46,33 @@ public class DatabaseFactory {
 
 	protected void doConversion(final Database database) {
 		boolean anyConversion = false;
+		final List<String> completed = new ArrayList<>();
 		for (final Converter converter : converters) {
-			if (converter.onDatabaseLoad(database))
-				converter.onComplete();
-			if (converter.needsConversion(database))
+			final boolean needed = converter.needsConversion(database);
+			final String id = converter.getOldTable().getName() + "->" + converter.getNewTable().getName();
+			if (needed) {
+				if (!anyConversion) {
+					database.registerTable(CONVERSIONS);
+				}
 				anyConversion = true;
+				// finished before a later converter failed, running it again would duplicate its data
+				if (database.readFromPrimary(() -> database.contains(CONVERSIONS, "converter", id))) {
+					completed.add(id);
+					continue;
+				}
+			}
+			final boolean converted = converter.onDatabaseLoad(database);
+			if (converted)
+				converter.onComplete();
+			if (!needed)
+				continue;
+			if (!converted && converter instanceof StreamingConverter) {
+				// keep the old version so the conversion runs again and resumes from its checkpoint
+				Log.severe("Database conversion of " + converter.getOldTable().getName() + " did not finish, it will run again on the next start");
+				return;
+			}
+			database.insertColumns(CONVERSIONS, Arrays.asList("converter", "completed"), Arrays.asList(id, System.currentTimeMillis()));
+			completed.add(id);
 		}
 		if (anyConversion) {
 			database.getPlugin().reloadConfig();
@@ -51,6 +80,7 @@ public class DatabaseFactory {
 			Preconditions.checkNotNull(defaults, "Error doing plugin conversion, config defaults is null");
 			database.getPlugin().getConfig().set("Database Version", defaults.getInt("Database Version"));
 			database.getPlugin().saveConfig();
+			completed.forEach(id -> database.remove(CONVERSIONS, "converter", id));
 		}
 	}
 
@@ -0,0 +1,382 @@
+package me.chancesd.sdutils.database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import me.chancesd.sdutils.metrics.Metrics;
+import me.chancesd.sdutils.utils.Log;
+
+/**
+ * Runtime statistics of a {@link Database}.
+ * <p>
+ * Every operation is timed and recorded in a latency histogram per operation and table, batch operations
+ * also record how many rows they were given. Operations slower than the configured slow query threshold are
+ * logged as a warning. All counters are cumulative since the database was created.
+ * Operations on the period tables of a {@link LogTable} are recorded under the name of the log table.
+ */
+public class DatabaseMetrics {
+
+	// microseconds, indexed SQLite reads usually take well under a millisecond
+	private static final long[] LATENCY_BOUNDS_US = { 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000,
+			1_000_000, 2_500_000, 5_000_000 };
+	private static final long[] BATCH_SIZE_BOUNDS = { 1, 10, 50, 100, 250, 500, 1000, 5000, 10000 };
+	private final Map<OperationKey, Histogram> latencies = new ConcurrentHashMap<>();
+	private final Map<String, Histogram> batchSizes = new ConcurrentHashMap<>();
+	private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+	private final Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+	// lower case bucket table name to log table name, so a new bucket every period doesn't add a new histogram
+	private final Map<String, String> logBuckets = new ConcurrentHashMap<>();
+	private final LongAdder slowQueries = new LongAdder();
+	private final AtomicLong reportedSlowQueries = new AtomicLong();
+	private final long slowQueryThresholdNanos;
+
+	DatabaseMetrics(final long slowQueryThresholdMillis) {
+		this.slowQueryThresholdNanos = slowQueryThresholdMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMillis) : -1;
+	}
+
+	void addPool(final String name, final HikariDataSource pool) {
+		pools.put(name, pool);
+	}
+
+	void addLogBucket(final String bucket, final String logTable) {
+		logBuckets.put(bucket.toLowerCase(Locale.ROOT), logTable);
+	}
+
+	void removeLogBucket(final String bucket) {
+		logBuckets.remove(bucket.toLowerCase(Locale.ROOT));
+	}
+
+	@Nullable
+	private String tableKey(@Nullable final String table) {
+		if (table == null || logBuckets.isEmpty())
+			return table;
+		return logBuckets.getOrDefault(table.toLowerCase(Locale.ROOT), table);
+	}
+
+	/**
+	 * Record an operation that started at the given {@link System#nanoTime()}
+	 */
+	void record(final String operation, @Nullable final String table, final long startNanos) {
+		final long elapsed = System.nanoTime() - startNanos;
+		latencies.computeIfAbsent(new OperationKey(operation, tableKey(table)), k -> new Histogram(LATENCY_BOUNDS_US))
+				.add(TimeUnit.NANOSECONDS.toMicros(elapsed));
+		if (slowQueryThresholdNanos > 0 && elapsed >= slowQueryThresholdNanos) {
+			slowQueries.increment();
+			Log.warning("Slow database operation: " + operation + (table != null ? " on " + table : "") + " took "
+					+ TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms");
+		}
+	}
+
+	void recordBatch(final String operation, final int rows) {
+		batchSizes.computeIfAbsent(operation, k -> new Histogram(BATCH_SIZE_BOUNDS)).add(rows);
+	}
+
+	void recordFailure(final String operation) {
+		failures.computeIfAbsent(operation, k -> new LongAdder()).increment();
+	}
+
+	/**
+	 * @return Latency histograms in microseconds, by operation and table
+	 */
+	public Map<OperationKey, Histogram> getLatencies() {
+		return Collections.unmodifiableMap(latencies);
+	}
+
+	/**
+	 * @param operation Name of the operation, like {@code getRow}
+	 * @param table     Name of the table, or null for operations not bound to a table
+	 * @return Latency histogram in microseconds, or null if the operation never ran
+	 */
+	@Nullable
+	public Histogram getLatency(final String operation, @Nullable final String table) {
+		return latencies.get(new OperationKey(operation, tableKey(table)));
+	}
+
+	/**
+	 * @return Histograms of the amount of rows given to batch operations, by operation
+	 */
+	public Map<String, Histogram> getBatchSizes() {
+		return Collections.unmodifiableMap(batchSizes);
+	}
+
+	/**
+	 * @return Amount of logged failures, by operation
+	 */
+	public Map<String, Long> getFailures() {
+		final Map<String, Long> result = new HashMap<>();
+		failures.forEach((operation, count) -> result.put(operation, count.sum()));
+		return result;
+	}
+
+	/**
+	 * @return Amount of operations that took longer than the slow query threshold
+	 */
+	public long getSlowQueries() {
+		return slowQueries.sum();
+	}
+
+	/**
+	 * @return Slow query threshold in milliseconds, -1 if disabled
+	 */
+	public long getSlowQueryThreshold() {
+		return slowQueryThresholdNanos > 0 ? TimeUnit.NANOSECONDS.toMillis(slowQueryThresholdNanos) : -1;
+	}
+
+	/**
+	 * @return Current state of every connection pool, by pool name
+	 */
+	public List<PoolStats> getPoolStats() {
+		final List<PoolStats> stats = new ArrayList<>(pools.size());
+		pools.forEach((name, pool) -> {
+			final HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+			if (bean != null) {
+				stats.add(new PoolStats(name, bean.getActiveConnections(), bean.getIdleConnections(), bean.getTotalConnections(),
+						bean.getThreadsAwaitingConnection()));
+			}
+		});
+		return stats;
+	}
+
+	/**
+	 * Export these statistics as bStats charts.
+	 * The charts have to be created with the same ids on the bStats page of the plugin:
+	 * <ul>
+	 * <li>{@code database_operations} advanced pie, amount of operations by name</li>
+	 * <li>{@code database_average_latency} simple pie, average operation latency range</li>
+	 * <li>{@code database_slow_queries} single line chart, slow queries since the last submission</li>
+	 * </ul>
+	 *
+	 * @param metrics bStats instance of the plugin
+	 */
+	public void registerCharts(final Metrics metrics) {
+		metrics.addCustomChart(new Metrics.AdvancedPie("database_operations", () -> {
+			final Map<String, Integer> operations = new HashMap<>();
+			latencies.forEach((key, histogram) -> operations.merge(key.getOperation(), (int) histogram.getCount(), Integer::sum));
+			return operations;
+		}));
+		metrics.addCustomChart(new Metrics.SimplePie("database_average_latency", () -> {
+			long count = 0;
+			long total = 0;
+			for (final Histogram histogram : latencies.values()) {
+				count += histogram.getCount();
+				total += histogram.getSum();
+			}
+			return count == 0 ? null : latencyRange(total / count);
+		}));
+		metrics.addCustomChart(new Metrics.SingleLineChart("database_slow_queries", () -> {
+			final long total = slowQueries.sum();
+			return (int) (total - reportedSlowQueries.getAndSet(total));
+		}));
+	}
+
+	private static String latencyRange(final long micros) {
+		long lower = 0;
+		for (final long bound : LATENCY_BOUNDS_US) {
+			if (micros < bound)
+				return formatMicros(lower) + "-" + formatMicros(bound);
+			lower = bound;
+		}
+		return formatMicros(lower) + "+";
+	}
+
+	private static String formatMicros(final long micros) {
+		if (micros >= 1000)
+			return micros % 1000 == 0 ? micros / 1000 + "ms" : String.format("%.1fms", micros / 1000.0);
+		return micros + "us";
+	}
+
+	/**
+	 * Histogram with fixed bucket bounds.
+	 * A value goes in the first bucket whose upper bound is greater than it, values above the last bound go
+	 * in an extra overflow bucket.
+	 */
+	public static class Histogram {
+
+		private final long[] bounds;
+		private final LongAdder[] buckets;
+		private final LongAdder sum = new LongAdder();
+		private final AtomicLong max = new AtomicLong();
+
+		Histogram(final long[] bounds) {
+			this.bounds = bounds;
+			this.buckets = new LongAdder[bounds.length + 1];
+			for (int i = 0; i < buckets.length; i++) {
+				buckets[i] = new LongAdder();
+			}
+		}
+
+		void add(final long value) {
+			int i = 0;
+			while (i < bounds.length && value >= bounds[i]) {
+				i++;
+			}
+			buckets[i].increment();
+			sum.add(value);
+			max.accumulateAndGet(value, Math::max);
+		}
+
+		public long getCount() {
+			long count = 0;
+			for (final LongAdder bucket : buckets) {
+				count += bucket.sum();
+			}
+			return count;
+		}
+
+		public long getSum() {
+			return sum.sum();
+		}
+
+		public long getMax() {
+			return max.get();
+		}
+
+		public double getMean() {
+			final long count = getCount();
+			return count == 0 ? 0 : (double) getSum() / count;
+		}
+
+		/**
+		 * Estimate a percentile, the result is the upper bound of the bucket it falls in
+		 *
+		 * @param percentile Percentile between 0 and 100
+		 * @return Estimated value, or the maximum if it falls in the overflow bucket
+		 */
+		public long getPercentile(final double percentile) {
+			final long count = getCount();
+			if (count == 0)
+				return 0;
+			final long target = (long) Math.ceil(count * percentile / 100);
+			long seen = 0;
+			for (int i = 0; i < bounds.length; i++) {
+				seen += buckets[i].sum();
+				if (seen >= target)
+					return Math.min(bounds[i], getMax());
+			}
+			return getMax();
+		}
+
+		/**
+		 * @return Upper bounds of the buckets, the overflow bucket is not included
+		 */
+		public long[] getBounds() {
+			return bounds.clone();
+		}
+
+		/**
+		 * @return Amount of values in each bucket, the last one being the overflow bucket
+		 */
+		public long[] getBuckets() {
+			final long[] counts = new long[buckets.length];
+			for (int i = 0; i < buckets.length; i++) {
+				counts[i] = buckets[i].sum();
+			}
+			return counts;
+		}
+
+		@Override
+		public String toString() {
+			return "count=" + getCount() + ", mean=" + String.format("%.1f", getMean()) + ", p95=" + getPercentile(95) + ", max=" + getMax();
+		}
+	}
+
+	public static final class OperationKey {
+
+		private final String operation;
+		@Nullable
+		private final String table;
+
+		OperationKey(final String operation, @Nullable final String table) {
+			this.operation = operation;
+			this.table = table;
+		}
+
+		public String getOperation() {
+			return operation;
+		}
+
+		@Nullable
+		public String getTable() {
+			return table;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (this == o)
+				return true;
+			if (!(o instanceof final OperationKey other))
+				return false;
+			return operation.equals(other.operation) && Objects.equals(table, other.table);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(operation, table);
+		}
+
+		@Override
+		public String toString() {
+			return table != null ? operation + "(" + table + ")" : operation;
+		}
+	}
+
+	public static final class PoolStats {
+
+		private final String name;
+		private final int active;
+		private final int idle;
+		private final int total;
+		private final int pending;
+
+		PoolStats(final String name, final int active, final int idle, final int total, final int pending) {
+			this.name = name;
+			this.active = active;
+			this.idle = idle;
+			this.total = total;
+			this.pending = pending;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getActive() {
+			return active;
+		}
+
+		public int getIdle() {
+			return idle;
+		}
+
+		public int getTotal() {
+			return total;
+		}
+
+		/**
+		 * @return Amount of threads waiting for a connection
+		 */
+		public int getPending() {
+			return pending;
+		}
+
+		@Override
+		public String toString() {
+			return name + ": active=" + active + ", idle=" + idle + ", total=" + total + ", pending=" + pending;
+		}
+	}
+}
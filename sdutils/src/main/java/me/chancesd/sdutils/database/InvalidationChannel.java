@@ -0,0 +1,247 @@
+package me.chancesd.sdutils.database;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jetbrains.annotations.Nullable;
+
+import me.chancesd.sdutils.scheduler.ScheduleUtils;
+import me.chancesd.sdutils.utils.Log;
+
+/**
+ * Invalidates cached rows across servers that share a MySQL database, enabled with
+ * {@link DatabaseConfigBuilder#invalidationInterval(long)}.
+ * <p>
+ * Every change to a table with a row cache, or with a listener on it, is recorded in a small change log table.
+ * Each server polls the log for entries added by the other servers since the last poll and invalidates exactly
+ * the changed rows, so caches can use long time to live values instead of re-querying constantly.
+ * Changes are written in batches on the next poll, failed writes are retried, and entries older than a few minutes are pruned.
+ * Keys too long for the change log invalidate the whole table instead.
+ * Every server is expected to run the same plugin, so changes are only published for tables that this server
+ * caches or listens to.
+ */
+public class InvalidationChannel {
+
+	/**
+	 * Listener for changes made by other servers
+	 */
+	@FunctionalInterface
+	public interface ChangeListener {
+		/**
+		 * Called on the polling thread for every change made by another server
+		 *
+		 * @param table  Name of the changed table
+		 * @param column Column identifying the changed row, NULL if the whole table may have changed
+		 * @param value  Value of that column, as a string
+		 */
+		void onChange(String table, @Nullable String column, @Nullable String value);
+	}
+
+	static final Table CHANGES = new Table("sdutils_changes",
+			Column.of("id", ColumnType.BIGINT).autoIncrement(),
+			Column.of("server", ColumnType.VARCHAR).length(36).notNull(),
+			Column.of("table_name", ColumnType.VARCHAR).length(64).notNull(),
+			Column.of("key_column", ColumnType.VARCHAR).length(64),
+			Column.of("key_value", ColumnType.VARCHAR).length(255),
+			Column.of("created", ColumnType.BIGINT).notNull())
+			.index("created");
+	private static final List<String> INSERT_COLUMNS = Arrays.asList("server", "table_name", "key_column", "key_value", "created");
+	private static final String READ = "SELECT id, server, table_name, key_column, key_value FROM " + CHANGES.getName()
+			+ " WHERE id > ? ORDER BY id LIMIT ?";
+	private static final String PRUNE = "DELETE FROM " + CHANGES.getName() + " WHERE created < ?";
+	private static final int READ_BATCH = 500;
+	private static final int MAX_KEY_LENGTH = 255;
+	// entries committed late can show up below ids already read, they are read again until this old
+	private static final long SETTLE_TIME = TimeUnit.SECONDS.toMillis(5);
+	private static final long RETENTION = TimeUnit.MINUTES.toMillis(10);
+	private static final long PRUNE_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+	private final Database database;
+	private final String serverId = UUID.randomUUID().toString();
+	private final Queue<Collection<Object>> pending = new ConcurrentLinkedQueue<>();
+	private final Map<String, List<ChangeListener>> listeners = new ConcurrentHashMap<>();
+	private final Set<Long> applied = new HashSet<>();
+	private final Deque<long[]> polls = new ArrayDeque<>();
+	private final ScheduledFuture<?> pollTask;
+	private final long settleTime;
+	private long watermark = -1;
+	private long lastPrune;
+
+	InvalidationChannel(final Database database, final long interval) {
+		this(database, interval, SETTLE_TIME);
+	}
+
+	InvalidationChannel(final Database database, final long interval, final long settleTime) {
+		this.database = database;
+		this.settleTime = settleTime;
+		database.registerTable(CHANGES);
+		this.pollTask = ScheduleUtils.runAsyncTimer(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Listen to changes other servers make to a table. Changes to the table are published from then on,
+	 * even if it has no row cache.
+	 *
+	 * @param table    Table to listen to
+	 * @param listener Listener called for each change
+	 */
+	public void addListener(final Table table, final ChangeListener listener) {
+		listeners.computeIfAbsent(table.getName().toLowerCase(Locale.ROOT), k -> new CopyOnWriteArrayList<>()).add(listener);
+	}
+
+	/**
+	 * Publish a change to the other servers, for changes made outside of the {@link Database} methods
+	 *
+	 * @param table  Changed table
+	 * @param column Column identifying the changed row, NULL if the whole table may have changed
+	 * @param value  Value of that column
+	 */
+	public void publish(final Table table, @Nullable final String column, @Nullable final Object value) {
+		final String key = column != null ? String.valueOf(value) : null;
+		if (key != null && key.length() > MAX_KEY_LENGTH) {
+			// doesn't fit in key_value, invalidate the whole table instead
+			pending.add(Arrays.asList(serverId, table.getName(), null, null, System.currentTimeMillis()));
+			return;
+		}
+		pending.add(Arrays.asList(serverId, table.getName(), column, key, System.currentTimeMillis()));
+	}
+
+	/**
+	 * @return Random id of this server in the change log
+	 */
+	public String getServerId() {
+		return serverId;
+	}
+
+	boolean isPublished(final Table table) {
+		return table != CHANGES && (table.getRowCache() != null || listeners.containsKey(table.getName().toLowerCase(Locale.ROOT)));
+	}
+
+	synchronized void poll() {
+		if (!database.isReady())
+			return;
+		flush();
+		final long now = System.currentTimeMillis();
+		if (watermark < 0) {
+			// start from the end of the log, older changes were made before our caches existed
+			final List<Long> last = database.readFromPrimary(() -> database.query("SELECT MAX(id) FROM " + CHANGES.getName(), row -> row.getLong(1)));
+			watermark = last.isEmpty() ? 0 : last.get(0);
+			polls.add(new long[] { now, watermark });
+		}
+		long lastRead = watermark;
+		List<Change> changes;
+		do {
+			final long after = lastRead;
+			changes = database.readFromPrimary(() -> database.query(READ, Change::new, after, READ_BATCH));
+			for (final Change change : changes) {
+				lastRead = change.id;
+				if (applied.add(change.id) && !serverId.equals(change.server)) {
+					apply(change);
+				}
+			}
+		} while (changes.size() == READ_BATCH);
+
+		polls.add(new long[] { now, lastRead });
+		while (polls.size() > 1 && now - polls.peekFirst()[0] >= settleTime) {
+			watermark = polls.pollFirst()[1];
+		}
+		applied.removeIf(id -> id <= watermark);
+
+		if (now - lastPrune >= PRUNE_INTERVAL) {
+			lastPrune = now;
+			database.update(CHANGES, PRUNE, now - RETENTION);
+		}
+	}
+
+	private void flush() {
+		final List<Collection<Object>> rows = new ArrayList<>();
+		Collection<Object> row;
+		while ((row = pending.poll()) != null) {
+			rows.add(row);
+		}
+		if (rows.isEmpty())
+			return;
+		final BatchResult result = database.insertColumnsBatch(CHANGES, INSERT_COLUMNS, rows);
+		if (result.isSuccess())
+			return;
+		// retry on the next poll, changes older than the retention would be pruned right away so they are dropped
+		final long oldest = System.currentTimeMillis() - RETENTION;
+		final int created = INSERT_COLUMNS.indexOf("created");
+		int dropped = 0;
+		for (final BatchResult.Chunk chunk : result.getFailures()) {
+			for (final Collection<Object> failed : rows.subList(chunk.getFirstRow(), chunk.getFirstRow() + chunk.getSize())) {
+				if ((long) ((List<?>) failed).get(created) >= oldest) {
+					pending.add(failed);
+				} else {
+					dropped++;
+				}
+			}
+		}
+		Log.warning("Failed to publish " + result.getFailedRows() + " changes to the other servers"
+				+ (dropped > 0 ? ", dropped " + dropped + " that are too old to retry" : ", retrying on the next poll"));
+	}
+
+	private void apply(final Change change) {
+		final Table table = database.getTable(change.table);
+		final RowCache cache = table != null ? table.getRowCache() : null;
+		if (cache != null) {
+			if (change.column == null) {
+				cache.invalidateAll();
+			} else {
+				cache.invalidate(change.column, change.value);
+			}
+		}
+		final List<ChangeListener> tableListeners = listeners.get(change.table.toLowerCase(Locale.ROOT));
+		if (tableListeners == null)
+			return;
+		for (final ChangeListener listener : tableListeners) {
+			try {
+				listener.onChange(change.table, change.column, change.value);
+			} catch (final RuntimeException e) {
+				Log.severe("Error in change listener for table " + change.table, e);
+			}
+		}
+	}
+
+	synchronized void close() {
+		if (pollTask != null) {
+			pollTask.cancel(false);
+		}
+		if (database.isReady()) {
+			flush();
+		}
+	}
+
+	private static final class Change {
+		private final long id;
+		private final String server;
+		private final String table;
+		@Nullable
+		private final String column;
+		@Nullable
+		private final String value;
+
+		private Change(final RowView row) throws SQLException {
+			this.id = row.getLong(1);
+			this.server = row.getString(2);
+			this.table = row.getString(3);
+			this.column = row.getString(4);
+			this.value = row.getString(5);
+		}
+	}
+}
@@ -0,0 +1,243 @@
+package me.chancesd.sdutils.database;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.jetbrains.annotations.Nullable;
+
+import me.chancesd.sdutils.scheduler.ScheduleUtils;
+import me.chancesd.sdutils.utils.Log;
+
+/**
+ * Append-only table split in one table per day or month, created with
+ * {@link Database#logTable(String, LogTable.Period, int, Column...)}.
+ * <p>
+ * Rows are queued and inserted asynchronously in batches into the table of the current period, named like
+ * {@code kills_20240131}. Old periods are removed by dropping their whole table, so retention never deletes
+ * rows one by one and logging never competes with player-facing queries on the same table.
+ * The table of the next period is created ahead of time, so rotating never blocks the caller.
+ */
+public class LogTable {
+
+	public enum Period {
+		DAY("yyyyMMdd", ChronoUnit.DAYS),
+		MONTH("yyyyMM", ChronoUnit.MONTHS);
+
+		private final DateTimeFormatter format;
+		private final int length;
+		private final ChronoUnit unit;
+
+		Period(final String pattern, final ChronoUnit unit) {
+			this.format = DateTimeFormatter.ofPattern(pattern);
+			this.length = pattern.length();
+			this.unit = unit;
+		}
+
+		private LocalDate start(final LocalDate date) {
+			return this == MONTH ? date.withDayOfMonth(1) : date;
+		}
+	}
+
+	private static final int MAX_PENDING = 500;
+	private static final long FLUSH_INTERVAL_SECONDS = 5;
+	private static final long MAINTENANCE_INTERVAL_MINUTES = 10;
+	private final Database database;
+	private final String name;
+	private final Period period;
+	private final int retention;
+	private final Column[] columns;
+	private final List<String> columnNames;
+	private final Pattern bucketPattern;
+	private final Map<LocalDate, Table> buckets = new ConcurrentHashMap<>();
+	private final Set<LocalDate> created = ConcurrentHashMap.newKeySet();
+	private final WriteBehindQueue queue;
+	private final ScheduledFuture<?> maintenanceTask;
+	private volatile Table current;
+	private volatile long nextRotation;
+
+	LogTable(final Database database, final String name, final Period period, final int retention, final Column... columns) {
+		if (retention <= 0)
+			throw new IllegalArgumentException("Retention must be at least one period");
+		this.database = database;
+		this.name = name;
+		this.period = period;
+		this.retention = retention;
+		this.columns = columns.clone();
+		this.columnNames = Arrays.stream(columns).map(Column::getName).toList();
+		this.bucketPattern = bucketPattern(name, period);
+		this.queue = new WriteBehindQueue(database, MAX_PENDING, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+		createBuckets();
+		database.runAsync(this::prune);
+		// schema changes run on the database executor like every other operation
+		this.maintenanceTask = ScheduleUtils.runAsyncTimer(() -> database.runAsync(this::maintain), MAINTENANCE_INTERVAL_MINUTES,
+				MAINTENANCE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Queue a row for the current period
+	 *
+	 * @param values Values in column order
+	 */
+	public void log(final Object... values) {
+		log(Arrays.asList(values));
+	}
+
+	/**
+	 * Queue a row for the current period
+	 *
+	 * @param values Values in column order
+	 */
+	public void log(final Collection<Object> values) {
+		if (System.currentTimeMillis() >= nextRotation) {
+			rotate();
+		}
+		queue.queueInsert(current, columnNames, values);
+	}
+
+	/**
+	 * Insert all queued rows on the calling thread
+	 */
+	public void flush() {
+		queue.flush();
+	}
+
+	/**
+	 * @param date A date in the period
+	 * @return Table of the period, it may not exist if nothing was logged in it or it was already dropped
+	 */
+	public Table getBucket(final LocalDate date) {
+		return bucket(period.start(date));
+	}
+
+	/**
+	 * @return Tables of all periods that exist in the database, newest first
+	 */
+	public List<Table> getBuckets() {
+		final List<LocalDate> dates = new ArrayList<>();
+		for (final SchemaCatalog.TableInfo table : database.getSchema().getTables()) {
+			final LocalDate date = parseBucket(table.getName());
+			if (date != null) {
+				dates.add(date);
+			}
+		}
+		dates.sort(Comparator.reverseOrder());
+		return dates.stream().map(this::bucket).toList();
+	}
+
+	/**
+	 * Drop the tables of periods older than the retention
+	 */
+	public void prune() {
+		final LocalDate oldest = oldestKept(period, retention, LocalDate.now());
+		for (final SchemaCatalog.TableInfo table : database.getSchema().getTables()) {
+			final LocalDate date = parseBucket(table.getName());
+			if (date != null && date.isBefore(oldest)) {
+				Log.debug("Dropping expired log table " + table.getName());
+				// tables left by earlier runs are recorded under the log table name too
+				database.getMetrics().addLogBucket(table.getName(), name);
+				database.deleteTable(table.getName());
+				buckets.remove(date);
+				created.remove(date);
+				database.getMetrics().removeLogBucket(table.getName());
+			}
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Create the tables of this and the next period and drop expired ones
+	 */
+	private void maintain() {
+		createBuckets();
+		prune();
+	}
+
+	private void createBuckets() {
+		final LocalDate today = today();
+		createBucket(today);
+		createBucket(today.plus(1, period.unit));
+		rotate();
+	}
+
+	private void createBucket(final LocalDate start) {
+		database.registerTable(bucket(start));
+		created.add(start);
+	}
+
+	private synchronized void rotate() {
+		final LocalDate today = today();
+		current = bucket(today);
+		if (!created.contains(today)) {
+			// maintenance fell behind, create the table before the queue flushes rows into it
+			database.runAsync(() -> createBucket(today));
+		}
+		nextRotation = today.plus(1, period.unit).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+
+	private Table bucket(final LocalDate start) {
+		return buckets.computeIfAbsent(start, date -> {
+			final Table table = new Table(name + "_" + date.format(period.format), columns);
+			database.getMetrics().addLogBucket(table.getName(), name);
+			return table;
+		});
+	}
+
+	private LocalDate today() {
+		return period.start(LocalDate.now());
+	}
+
+	@Nullable
+	private LocalDate parseBucket(final String table) {
+		return parseBucket(bucketPattern, period, table);
+	}
+
+	static Pattern bucketPattern(final String name, final Period period) {
+		return Pattern.compile(Pattern.quote(name) + "_\\d{" + period.length + "}", Pattern.CASE_INSENSITIVE);
+	}
+
+	/**
+	 * @return Start of the period of a bucket table, or null if the table isn't a bucket
+	 */
+	@Nullable
+	static LocalDate parseBucket(final Pattern bucketPattern, final Period period, final String table) {
+		if (!bucketPattern.matcher(table).matches())
+			return null;
+		final String suffix = table.substring(table.length() - period.length);
+		try {
+			return LocalDate.parse(period == Period.MONTH ? suffix + "01" : suffix, DateTimeFormatter.BASIC_ISO_DATE);
+		} catch (final DateTimeParseException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return Start of the oldest period kept, buckets of earlier periods are dropped
+	 */
+	static LocalDate oldestKept(final Period period, final int retention, final LocalDate today) {
+		return period.start(today).minus(retention - 1L, period.unit);
+	}
+
+	void close() {
+		if (maintenanceTask != null) {
+			maintenanceTask.cancel(false);
+		}
+		queue.close();
+	}
+}
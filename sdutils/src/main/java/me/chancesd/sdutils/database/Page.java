@@ -0,0 +1,41 @@
+package me.chancesd.sdutils.database;
+
+import java.util.List;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A page of rows read with {@link Database#getPage(PageQuery, String, int, RowMapper)}.
+ *
+ * @param <T> Type of the mapped rows
+ */
+public class Page<T> {
+
+	private final List<T> items;
+	@Nullable
+	private final String nextCursor;
+
+	Page(final List<T> items, @Nullable final String nextCursor) {
+		this.items = items;
+		this.nextCursor = nextCursor;
+	}
+
+	/**
+	 * @return Rows of this page, in query order
+	 */
+	public List<T> getItems() {
+		return items;
+	}
+
+	/**
+	 * @return Cursor to pass to get the next page, or null if this is the last page
+	 */
+	@Nullable
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public boolean hasNext() {
+		return nextCursor != null;
+	}
+}
@@ -0,0 +1,246 @@
+package me.chancesd.sdutils.database;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Keyset pagination over a table, for leaderboards and other long ordered lists.
+ * <p>
+ * Instead of skipping rows with {@code OFFSET}, every page continues after the last row of the previous one,
+ * identified by an opaque cursor token. The database then seeks straight to it through the index on the order
+ * column, so the last page costs the same as the first. The order column should be indexed and not nullable;
+ * when its values aren't unique a unique tie breaker column, like the primary key, keeps rows from being skipped.
+ * Numeric, text, decimal and date/time columns can be paged by.
+ *
+ * <pre>
+ * final PageQuery top = PageQuery.of(players, "kills").tieBreaker("uuid").descending();
+ * Page&lt;PlayerStats&gt; page = database.getPage(top, null, 10, PlayerStats::fromRow);
+ * page = database.getPage(top, page.getNextCursor(), 10, PlayerStats::fromRow);
+ * </pre>
+ */
+public class PageQuery {
+
+	private static final byte NULL = 0;
+	private static final byte LONG = 1;
+	private static final byte DOUBLE = 2;
+	private static final byte STRING = 3;
+	private static final byte DECIMAL = 4;
+	private static final byte BIG_INTEGER = 5;
+	private static final byte TIMESTAMP = 6;
+	private static final byte DATE = 7;
+	private static final byte LOCAL_DATE_TIME = 8;
+	private static final byte LOCAL_DATE = 9;
+	private final Table table;
+	private final String orderColumn;
+	@Nullable
+	private String tieBreaker;
+	private boolean descending;
+	private String firstPage;
+	private String nextPage;
+	private String skip;
+
+	private PageQuery(final Table table, final String orderColumn) {
+		this.table = table;
+		this.orderColumn = orderColumn;
+	}
+
+	/**
+	 * @param table       Table to page through
+	 * @param orderColumn Column the pages are ordered by
+	 * @return New ascending page query
+	 */
+	public static PageQuery of(final Table table, final String orderColumn) {
+		return new PageQuery(table, orderColumn);
+	}
+
+	/**
+	 * @param column Unique column ordering rows with the same order value
+	 * @return this
+	 */
+	public PageQuery tieBreaker(final String column) {
+		this.tieBreaker = column;
+		resetStatements();
+		return this;
+	}
+
+	/**
+	 * Order from the highest value to the lowest
+	 *
+	 * @return this
+	 */
+	public PageQuery descending() {
+		this.descending = true;
+		resetStatements();
+		return this;
+	}
+
+	public Table getTable() {
+		return table;
+	}
+
+	public String getOrderColumn() {
+		return orderColumn;
+	}
+
+	@Nullable
+	public String getTieBreaker() {
+		return tieBreaker;
+	}
+
+	public boolean isDescending() {
+		return descending;
+	}
+
+	private void resetStatements() {
+		firstPage = null;
+		nextPage = null;
+		skip = null;
+	}
+
+	/**
+	 * @return Query for the first page, takes the limit as parameter
+	 */
+	String firstPage() {
+		if (firstPage == null) {
+			firstPage = table.queries().selectAll() + orderBy() + " LIMIT ?";
+		}
+		return firstPage;
+	}
+
+	/**
+	 * @return Query for the page after a cursor, takes the cursor values and then the limit as parameters
+	 */
+	String nextPage() {
+		if (nextPage == null) {
+			nextPage = table.queries().selectAll() + " WHERE " + seek() + orderBy() + " LIMIT ?";
+		}
+		return nextPage;
+	}
+
+	/**
+	 * @return Query for the cursor columns of the row at an offset after a cursor, takes the cursor values and then
+	 *         the offset as parameters
+	 */
+	String skip(final boolean fromStart) {
+		final String columns = "SELECT " + orderColumn + (tieBreaker != null ? ", " + tieBreaker : "") + " FROM " + table.getName();
+		if (fromStart)
+			return columns + orderBy() + " LIMIT 1 OFFSET ?";
+		if (skip == null) {
+			skip = columns + " WHERE " + seek() + orderBy() + " LIMIT 1 OFFSET ?";
+		}
+		return skip;
+	}
+
+	/**
+	 * @return Values to bind for the seek condition of a cursor
+	 */
+	Object[] getCursorParameters(final String cursor) {
+		final Object[] values = decode(cursor);
+		if (values.length != (tieBreaker != null ? 2 : 1))
+			throw new IllegalArgumentException("Cursor doesn't belong to this query");
+		return tieBreaker != null ? new Object[] { values[0], values[0], values[1] } : values;
+	}
+
+	private String seek() {
+		final String operator = descending ? " < ?" : " > ?";
+		if (tieBreaker == null)
+			return orderColumn + operator;
+		return "(" + orderColumn + operator + " OR (" + orderColumn + " = ? AND " + tieBreaker + operator + "))";
+	}
+
+	private String orderBy() {
+		final String direction = descending ? " DESC" : " ASC";
+		return " ORDER BY " + orderColumn + direction + (tieBreaker != null ? ", " + tieBreaker + direction : "");
+	}
+
+	static String encode(final Object... values) {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(values.length);
+			for (final Object value : values) {
+				if (value == null) {
+					out.writeByte(NULL);
+				} else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+					out.writeByte(LONG);
+					out.writeLong(((Number) value).longValue());
+				} else if (value instanceof Double || value instanceof Float) {
+					out.writeByte(DOUBLE);
+					out.writeDouble(((Number) value).doubleValue());
+				} else if (value instanceof final String string) {
+					out.writeByte(STRING);
+					out.writeUTF(string);
+				} else if (value instanceof final BigDecimal decimal) {
+					out.writeByte(DECIMAL);
+					out.writeUTF(decimal.toString());
+				} else if (value instanceof final BigInteger integer) {
+					out.writeByte(BIG_INTEGER);
+					out.writeUTF(integer.toString());
+				} else if (value instanceof final Timestamp timestamp) {
+					out.writeByte(TIMESTAMP);
+					out.writeLong(timestamp.getTime());
+					out.writeInt(timestamp.getNanos());
+				} else if (value instanceof final Date date) {
+					out.writeByte(DATE);
+					out.writeLong(date.getTime());
+				} else if (value instanceof final LocalDateTime dateTime) {
+					out.writeByte(LOCAL_DATE_TIME);
+					out.writeUTF(dateTime.toString());
+				} else if (value instanceof final LocalDate date) {
+					out.writeByte(LOCAL_DATE);
+					out.writeUTF(date.toString());
+				} else {
+					throw new IllegalArgumentException("Can't page by values of type " + value.getClass().getName()
+							+ ", order by a numeric, text or date column");
+				}
+			}
+		} catch (final UTFDataFormatException e) {
+			throw new IllegalArgumentException("Can't page by text values this long", e);
+		} catch (final IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+	}
+
+	static Object[] decode(final String cursor) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+			final Object[] values = new Object[in.readByte()];
+			for (int i = 0; i < values.length; i++) {
+				final byte type = in.readByte();
+				values[i] = switch (type) {
+				case NULL -> null;
+				case LONG -> in.readLong();
+				case DOUBLE -> in.readDouble();
+				case STRING -> in.readUTF();
+				case DECIMAL -> new BigDecimal(in.readUTF());
+				case BIG_INTEGER -> new BigInteger(in.readUTF());
+				case TIMESTAMP -> {
+					final Timestamp timestamp = new Timestamp(in.readLong());
+					timestamp.setNanos(in.readInt());
+					yield timestamp;
+				}
+				case DATE -> new Date(in.readLong());
+				case LOCAL_DATE_TIME -> LocalDateTime.parse(in.readUTF());
+				case LOCAL_DATE -> LocalDate.parse(in.readUTF());
+				default -> throw new IllegalArgumentException("Invalid cursor");
+				};
+			}
+			return values;
+		} catch (final IOException | IllegalArgumentException | DateTimeParseException e) {
+			throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package me.chancesd.sdutils.database;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import me.chancesd.sdutils.database.DatabaseConfigBuilder.DatabaseType;
+
+/**
+ * Cache of the SQL statements {@link Database} runs against a table.
+ * <p>
+ * Statements are built the first time they are needed and reused afterwards, so the hot path does no string
+ * building and always sends the exact same SQL to the driver, which keeps its prepared statement cache hitting.
+ */
+class QueryTemplates {
+
+	private final String tableName;
+	private final String selectAll;
+	private final Map<String, String> selectByKey = new ConcurrentHashMap<>();
+	private final Map<String, String> exists = new ConcurrentHashMap<>();
+	private final Map<String, Map<Integer, String>> keysIn = new ConcurrentHashMap<>();
+	private final Map<String, Map<Integer, String>> selectIn = new ConcurrentHashMap<>();
+	private final Map<String, String> delete = new ConcurrentHashMap<>();
+	private final Map<String, Map<List<String>, String>> update = new ConcurrentHashMap<>();
+	private final Map<List<String>, String> insert = new ConcurrentHashMap<>();
+	private final Map<Integer, String> insertDefault = new ConcurrentHashMap<>();
+	private final Map<DatabaseType, Map<String, Map<List<String>, String>>> upsert = new ConcurrentHashMap<>();
+
+	QueryTemplates(final String tableName) {
+		this.tableName = tableName;
+		this.selectAll = "SELECT * FROM " + tableName;
+	}
+
+	String selectAll() {
+		return selectAll;
+	}
+
+	String selectByKey(final String index) {
+		return selectByKey.computeIfAbsent(index, k -> selectAll + " WHERE " + k + "=?");
+	}
+
+	String exists(final String index) {
+		return exists.computeIfAbsent(index, k -> "SELECT 1 FROM " + tableName + " WHERE " + k + "=? LIMIT 1");
+	}
+
+	String keysIn(final String index, final int parameterCount) {
+		return keysIn.computeIfAbsent(index, k -> new ConcurrentHashMap<>())
+				.computeIfAbsent(parameterCount, k -> "SELECT " + index + " FROM " + tableName + " WHERE " + index + " IN (" + parameters(k) + ")");
+	}
+
+	String selectIn(final String index, final int parameterCount) {
+		return selectIn.computeIfAbsent(index, k -> new ConcurrentHashMap<>())
+				.computeIfAbsent(parameterCount, k -> selectAll + " WHERE " + index + " IN (" + parameters(k) + ")");
+	}
+
+	String delete(final String index) {
+		return delete.computeIfAbsent(index, k -> "DELETE FROM " + tableName + " WHERE " + k + "=?");
+	}
+
+	String update(final String index, final Collection<String> columns) {
+		final Map<List<String>, String> byColumns = update.computeIfAbsent(index, k -> new ConcurrentHashMap<>());
+		return cached(byColumns, columns, key -> "UPDATE " + tableName + " SET " + String.join("=?,", key) + "=? WHERE " + index + "=?");
+	}
+
+	String insert(final Collection<String> columns) {
+		return cached(insert, columns, key -> "INSERT INTO " + tableName + "(" + String.join(",", key) + ") VALUES(" + parameters(key.size()) + ")");
+	}
+
+	String upsert(final DatabaseType type, final String index, final Collection<String> columns) {
+		final Map<List<String>, String> byColumns = upsert.computeIfAbsent(type, k -> new ConcurrentHashMap<>())
+				.computeIfAbsent(index, k -> new ConcurrentHashMap<>());
+		return cached(byColumns, columns, key -> buildUpsert(type, index, key));
+	}
+
+	private String buildUpsert(final DatabaseType type, final String index, final List<String> columns) {
+		final StringBuilder sql = new StringBuilder(insert(columns));
+		final List<String> updated = columns.stream().filter(column -> !column.equalsIgnoreCase(index)).toList();
+		if (type == DatabaseType.MYSQL) {
+			sql.append(" ON DUPLICATE KEY UPDATE ");
+			if (updated.isEmpty()) {
+				sql.append(index).append('=').append(index);
+			}
+			for (int i = 0; i < updated.size(); i++) {
+				if (i > 0) {
+					sql.append(',');
+				}
+				sql.append(updated.get(i)).append("=VALUES(").append(updated.get(i)).append(')');
+			}
+		} else {
+			sql.append(" ON CONFLICT(").append(index).append(") DO ");
+			if (updated.isEmpty()) {
+				sql.append("NOTHING");
+			} else {
+				sql.append("UPDATE SET ");
+			}
+			for (int i = 0; i < updated.size(); i++) {
+				if (i > 0) {
+					sql.append(',');
+				}
+				sql.append(updated.get(i)).append("=excluded.").append(updated.get(i));
+			}
+		}
+		return sql.toString();
+	}
+
+	String insertDefault(final int valueCount) {
+		return insertDefault.computeIfAbsent(valueCount, k -> "INSERT INTO " + tableName + " VALUES(" + parameters(k) + ")");
+	}
+
+	/**
+	 * Look up a statement keyed by a column list without copying the columns on a hit.
+	 * Lists are compared by content, so any list with the same columns in the same order hits the same entry.
+	 */
+	static String cached(final Map<List<String>, String> cache, final Collection<String> columns,
+			final Function<List<String>, String> builder) {
+		if (columns instanceof List) {
+			final String sql = cache.get(columns);
+			if (sql != null)
+				return sql;
+		}
+		// copy so later changes to the caller's collection can't corrupt the key
+		return cache.computeIfAbsent(List.copyOf(columns), builder);
+	}
+
+	static String parameters(final int count) {
+		final StringBuilder params = new StringBuilder(count * 2);
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				params.append(',');
+			}
+			params.append('?');
+		}
+		return params.toString();
+	}
+}
@@ -0,0 +1,91 @@
+package me.chancesd.sdutils.database;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import me.chancesd.sdutils.database.DatabaseConfigBuilder.ReplicaSelection;
+
+/**
+ * Picks the replica a read of a MySQL {@link Database} goes to.
+ * <p>
+ * Reads stay on the primary while the current thread runs {@link #readFromPrimary(Supplier)} and during the
+ * read-your-writes window after a write, so a write is not followed by a stale read from a lagging replica.
+ */
+final class ReplicaRouter {
+
+	private final List<HikariDataSource> replicas;
+	private final ReplicaSelection selection;
+	private final long readYourWritesNanos;
+	private final AtomicInteger nextReplica = new AtomicInteger();
+	// System.nanoTime() of the last write, reads shortly after it go to the primary
+	private volatile long lastWrite;
+	// set while running readFromPrimary on the current thread
+	private final ThreadLocal<Boolean> primaryReads = new ThreadLocal<>();
+
+	/**
+	 * @param replicas             Replica pools, may be empty
+	 * @param selection            How a replica is picked for each read
+	 * @param readYourWritesWindow Time in milliseconds after a write that reads stay on the primary
+	 */
+	ReplicaRouter(final List<HikariDataSource> replicas, final ReplicaSelection selection, final long readYourWritesWindow) {
+		this.replicas = replicas;
+		this.selection = selection;
+		this.readYourWritesNanos = TimeUnit.MILLISECONDS.toNanos(readYourWritesWindow);
+		this.lastWrite = System.nanoTime() - readYourWritesNanos;
+	}
+
+	/**
+	 * Start the read-your-writes window
+	 */
+	void recordWrite() {
+		if (!replicas.isEmpty()) {
+			lastWrite = System.nanoTime();
+		}
+	}
+
+	/**
+	 * @see Database#readFromPrimary(Supplier)
+	 */
+	<T> T readFromPrimary(final Supplier<T> work) {
+		if (primaryReads.get() != null)
+			return work.get();
+		primaryReads.set(Boolean.TRUE);
+		try {
+			return work.get();
+		} finally {
+			primaryReads.remove();
+		}
+	}
+
+	/**
+	 * @return Replica to read from, null if the read must go to the primary
+	 */
+	@Nullable
+	HikariDataSource select() {
+		if (replicas.isEmpty() || primaryReads.get() != null || System.nanoTime() - lastWrite < readYourWritesNanos)
+			return null;
+		if (replicas.size() == 1)
+			return replicas.get(0);
+		if (selection == ReplicaSelection.LEAST_BUSY) {
+			HikariDataSource best = replicas.get(0);
+			int bestLoad = Integer.MAX_VALUE;
+			for (final HikariDataSource pool : replicas) {
+				final HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+				final int load = bean != null ? bean.getActiveConnections() + bean.getThreadsAwaitingConnection() : 0;
+				if (load < bestLoad) {
+					best = pool;
+					bestLoad = load;
+				}
+			}
+			return best;
+		}
+		return replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+	}
+}
@@ -0,0 +1,220 @@
+package me.chancesd.sdutils.database;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * LRU cache of table rows with time based expiry.
+ * <p>
+ * Rows are keyed by the index column and value used to look them up. The cache is enabled per table with
+ * {@link Table#cacheRows(int, long, TimeUnit)} and is kept up to date by the write methods of {@link Database},
+ * which invalidate the affected rows. Writes done with raw SQL through {@link Database#getConnection()} are not
+ * seen by the cache.
+ */
+public class RowCache {
+
+	private final int maxSize;
+	private final long ttlNanos;
+	private final LinkedHashMap<CacheKey, CachedRow> rows;
+	private final Set<String> indexColumns = new HashSet<>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private long invalidations;
+
+	/**
+	 * @param maxSize Maximum amount of cached rows
+	 * @param ttl     Time after which a cached row expires
+	 * @param unit    Time unit of the ttl
+	 */
+	public RowCache(final int maxSize, final long ttl, final TimeUnit unit) {
+		if (maxSize <= 0)
+			throw new IllegalArgumentException("Cache size must be positive");
+		this.maxSize = maxSize;
+		this.ttlNanos = unit.toNanos(ttl);
+		this.rows = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = -2315447213375104318L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<CacheKey, CachedRow> eldest) {
+				if (size() > RowCache.this.maxSize) {
+					evictions.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Get a cached row
+	 *
+	 * @param index Column the row was looked up with
+	 * @param value Value of the column
+	 * @return The cached row, or null if not cached or expired
+	 */
+	@Nullable
+	public synchronized Map<String, Object> get(final String index, final Object value) {
+		final CacheKey key = new CacheKey(index, value);
+		final CachedRow cached = rows.get(key);
+		if (cached == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		if (System.nanoTime() - cached.loadedAt >= ttlNanos) {
+			rows.remove(key);
+			evictions.incrementAndGet();
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return cached.row;
+	}
+
+	/**
+	 * Get a stamp to pass to {@link #put(String, Object, Map, long)}.
+	 * Take the stamp before loading a row from the database, so a row loaded while a write
+	 * invalidated the cache is not stored.
+	 *
+	 * @return The current stamp
+	 */
+	public synchronized long stamp() {
+		return invalidations;
+	}
+
+	/**
+	 * Cache a row
+	 *
+	 * @param index Column the row was looked up with
+	 * @param value Value of the column
+	 * @param row   The row to cache
+	 * @param stamp Stamp taken before the row was loaded
+	 */
+	public synchronized void put(final String index, final Object value, final Map<String, Object> row, final long stamp) {
+		if (stamp != invalidations)
+			return;
+		final CacheKey key = new CacheKey(index, value);
+		indexColumns.add(key.index);
+		rows.put(key, new CachedRow(Collections.unmodifiableMap(row), System.nanoTime()));
+	}
+
+	/**
+	 * Invalidate the rows matching a column value.
+	 * Rows cached under a different index column are also checked, so a row looked up by name
+	 * is invalidated by an update by id.
+	 *
+	 * @param index Column to match
+	 * @param value Value of the column
+	 */
+	public synchronized void invalidate(final String index, final Object value) {
+		invalidations++;
+		final CacheKey key = new CacheKey(index, value);
+		rows.remove(key);
+		if (indexColumns.size() == 1 && indexColumns.contains(key.index))
+			return;
+		final Iterator<Map.Entry<CacheKey, CachedRow>> iterator = rows.entrySet().iterator();
+		while (iterator.hasNext()) {
+			final Object rowValue = getColumn(iterator.next().getValue().row, index);
+			if (rowValue != null && key.value.equals(String.valueOf(rowValue))) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Invalidate all cached rows
+	 */
+	public synchronized void invalidateAll() {
+		invalidations++;
+		rows.clear();
+	}
+
+	public synchronized int size() {
+		return rows.size();
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * @return Ratio of hits to total lookups, 0 if there were no lookups
+	 */
+	public double getHitRate() {
+		final long hitCount = hits.get();
+		final long total = hitCount + misses.get();
+		return total == 0 ? 0 : (double) hitCount / total;
+	}
+
+	@Override
+	public String toString() {
+		return "RowCache[size=" + size() + ", hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions() + "]";
+	}
+
+	/**
+	 * Get a column from a row, ignoring the case of the column name like SQL does
+	 */
+	static Object getColumn(final Map<String, Object> row, final String column) {
+		final Object value = row.get(column);
+		if (value != null || row.containsKey(column))
+			return value;
+		for (final Map.Entry<String, Object> entry : row.entrySet()) {
+			if (entry.getKey().equalsIgnoreCase(column))
+				return entry.getValue();
+		}
+		return null;
+	}
+
+	private static final class CacheKey {
+		private final String index;
+		private final String value;
+
+		// values are compared as strings so an Integer and Long id, or a UUID and its string, hit the same row
+		private CacheKey(final String index, final Object value) {
+			this.index = index.toLowerCase(Locale.ROOT);
+			this.value = String.valueOf(value);
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof final CacheKey other))
+				return false;
+			return index.equals(other.index) && value.equals(other.value);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(index, value);
+		}
+	}
+
+	private static final class CachedRow {
+		private final Map<String, Object> row;
+		private final long loadedAt;
+
+		private CachedRow(final Map<String, Object> row, final long loadedAt) {
+			this.row = row;
+			this.loadedAt = loadedAt;
+		}
+	}
+}
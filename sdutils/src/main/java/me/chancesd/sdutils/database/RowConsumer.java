@@ -0,0 +1,18 @@
+package me.chancesd.sdutils.database;
+
+import java.sql.SQLException;
+
+/**
+ * Callback for rows read by {@link Database#forEachRow(Table, int, RowConsumer)}.
+ */
+@FunctionalInterface
+public interface RowConsumer {
+
+	/**
+	 * Process a row. The view is only valid until this method returns.
+	 *
+	 * @param row View of the current row
+	 * @throws SQLException if reading the row fails
+	 */
+	void accept(RowView row) throws SQLException;
+}
@@ -0,0 +1,69 @@
+package me.chancesd.sdutils.database;
+
+import java.sql.SQLException;
+
+/**
+ * Maps a row to an object.
+ * <p>
+ * Mappers read columns through the {@link RowView} and should use the primitive getters like
+ * {@link RowView#getInt(int)} to avoid boxing intermediate values.
+ * Name based getters look the column up on every row, so hot mappers resolve their indexes once per statement
+ * with {@link #prepared(SQLFunction)} and read by index.
+ * Register a mapper for a table with {@link Table#registerMapper(Class, RowMapper)}:
+ *
+ * <pre>
+ * table.registerMapper(PlayerData.class, RowMapper.prepared(view -&gt; {
+ * 	final int uuid = view.indexOf("uuid");
+ * 	final int kills = view.indexOf("kills");
+ * 	final int deaths = view.indexOf("deaths");
+ * 	return row -&gt; new PlayerData(row.getString(uuid), row.getInt(kills), row.getInt(deaths));
+ * }));
+ * PlayerData data = database.getRow(table, "uuid", uuid, PlayerData.class);
+ * </pre>
+ *
+ * @param <T> Type of the mapped object
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+	/**
+	 * Map the current row. The view is only valid until this method returns.
+	 *
+	 * @param row View of the current row
+	 * @return The mapped object
+	 * @throws SQLException if reading the row fails
+	 */
+	T map(RowView row) throws SQLException;
+
+	/**
+	 * Called once per statement, before the first row, to get the mapper used for its rows.
+	 *
+	 * @param view View of the statement's result
+	 * @return Mapper for the rows of this statement
+	 * @throws SQLException if reading the result metadata fails
+	 */
+	default RowMapper<T> prepare(final RowView view) throws SQLException {
+		return this;
+	}
+
+	/**
+	 * Create a mapper that resolves its column indexes once per statement.
+	 *
+	 * @param <T>      Type of the mapped object
+	 * @param preparer Creates the row mapper for a statement, usually from {@link RowView#indexOf(String)} lookups
+	 * @return Mapper that prepares a row mapper for each statement
+	 */
+	static <T> RowMapper<T> prepared(final SQLFunction<RowView, RowMapper<T>> preparer) {
+		return new RowMapper<T>() {
+			@Override
+			public T map(final RowView row) throws SQLException {
+				return preparer.apply(row).map(row);
+			}
+
+			@Override
+			public RowMapper<T> prepare(final RowView view) throws SQLException {
+				return preparer.apply(view);
+			}
+		};
+	}
+}
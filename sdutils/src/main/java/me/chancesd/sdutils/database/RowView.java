@@ -0,0 +1,146 @@
+package me.chancesd.sdutils.database;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reusable, column indexed view over the current row of a {@link ResultSet}.
+ * <p>
+ * Column names are resolved to indexes once when the view is created, so reading a row does not touch the
+ * result set metadata again. The same instance is moved along the result set, so a view must not be kept
+ * after the callback it was passed to returns; copy what you need or use {@link #toMap()}.
+ * Name based getters still look the name up for every call, use {@link #indexOf(String)} once and the index
+ * getters in hot paths.
+ */
+public class RowView {
+
+	private final ResultSet resultSet;
+	private final String[] columns;
+	private final Map<String, Integer> indexes;
+
+	RowView(final ResultSet resultSet) throws SQLException {
+		this.resultSet = resultSet;
+		final ResultSetMetaData metaData = resultSet.getMetaData();
+		this.columns = new String[metaData.getColumnCount()];
+		this.indexes = new HashMap<>(columns.length * 4);
+		for (int i = 0; i < columns.length; i++) {
+			final String column = metaData.getColumnLabel(i + 1);
+			columns[i] = column;
+			indexes.putIfAbsent(column, i + 1);
+			indexes.putIfAbsent(column.toLowerCase(Locale.ROOT), i + 1);
+		}
+	}
+
+	/**
+	 * @return Amount of columns in this row
+	 */
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	/**
+	 * @param index Index of the column, starting at 1
+	 * @return Name of the column
+	 */
+	public String getColumnName(final int index) {
+		return columns[index - 1];
+	}
+
+	/**
+	 * Resolve a column name to its index, ignoring case
+	 *
+	 * @param column Name of the column
+	 * @return Index of the column, starting at 1
+	 * @throws IllegalArgumentException if the column does not exist
+	 */
+	public int indexOf(final String column) {
+		Integer index = indexes.get(column);
+		if (index == null) {
+			index = indexes.get(column.toLowerCase(Locale.ROOT));
+			if (index == null)
+				throw new IllegalArgumentException("Unknown column: " + column);
+		}
+		return index;
+	}
+
+	public Object getObject(final int index) throws SQLException {
+		return resultSet.getObject(index);
+	}
+
+	public Object getObject(final String column) throws SQLException {
+		return resultSet.getObject(indexOf(column));
+	}
+
+	public String getString(final int index) throws SQLException {
+		return resultSet.getString(index);
+	}
+
+	public String getString(final String column) throws SQLException {
+		return resultSet.getString(indexOf(column));
+	}
+
+	public int getInt(final int index) throws SQLException {
+		return resultSet.getInt(index);
+	}
+
+	public int getInt(final String column) throws SQLException {
+		return resultSet.getInt(indexOf(column));
+	}
+
+	public long getLong(final int index) throws SQLException {
+		return resultSet.getLong(index);
+	}
+
+	public long getLong(final String column) throws SQLException {
+		return resultSet.getLong(indexOf(column));
+	}
+
+	public double getDouble(final int index) throws SQLException {
+		return resultSet.getDouble(index);
+	}
+
+	public double getDouble(final String column) throws SQLException {
+		return resultSet.getDouble(indexOf(column));
+	}
+
+	public boolean getBoolean(final int index) throws SQLException {
+		return resultSet.getBoolean(index);
+	}
+
+	public boolean getBoolean(final String column) throws SQLException {
+		return resultSet.getBoolean(indexOf(column));
+	}
+
+	/**
+	 * @return Whether the last column read was SQL NULL
+	 * @throws SQLException if a database access error occurs
+	 */
+	public boolean wasNull() throws SQLException {
+		return resultSet.wasNull();
+	}
+
+	/**
+	 * Copy the current row into a new map of column names to values
+	 *
+	 * @return Map of the row
+	 * @throws SQLException if a database access error occurs
+	 */
+	public Map<String, Object> toMap() throws SQLException {
+		final Map<String, Object> row = new HashMap<>(columns.length * 2);
+		for (int i = 0; i < columns.length; i++) {
+			row.put(columns[i], resultSet.getObject(i + 1));
+		}
+		return row;
+	}
+
+	/**
+	 * @return The underlying result set
+	 */
+	public ResultSet getResultSet() {
+		return resultSet;
+	}
+}
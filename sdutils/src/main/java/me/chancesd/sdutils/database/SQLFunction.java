@@ -0,0 +1,15 @@
+package me.chancesd.sdutils.database;
+
+import java.sql.SQLException;
+
+/**
+ * Function that may throw an {@link SQLException}.
+ *
+ * @param <T> Type of the input
+ * @param <R> Type of the result
+ */
+@FunctionalInterface
+public interface SQLFunction<T, R> {
+
+	R apply(T t) throws SQLException;
+}
@@ -0,0 +1,224 @@
+package me.chancesd.sdutils.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.sql.DataSource;
+
+import me.chancesd.sdutils.utils.Log;
+
+/**
+ * Funnels all writes to a SQLite database through one thread.
+ * <p>
+ * SQLite only allows a single writer, so instead of letting threads compete for the write lock, writes are queued
+ * and executed by a dedicated thread. Writes queued while the previous group was committing are executed together
+ * in one transaction (group commit), each inside its own savepoint so a failing write is rolled back on its own
+ * without affecting the rest of the group.
+ */
+class SQLiteWriter {
+
+	private static final int MAX_GROUP_SIZE = 256;
+	private final DataSource dataSource;
+	private final BlockingQueue<WriteTask<?>> queue = new LinkedBlockingQueue<>();
+	private final Thread thread;
+	private final Object lock = new Object();
+	private volatile boolean running = true;
+	private Connection groupConnection;
+
+	SQLiteWriter(final DataSource dataSource, final String name) {
+		this.dataSource = dataSource;
+		this.thread = new Thread(this::run, name);
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Queue a write and wait for it to be committed.
+	 * When called from the writer thread itself the work runs right away in the current group.
+	 * <p>
+	 * There is no timeout, a long write is never reported as failed while it may still be committed.
+	 * An exception means the write was rolled back or never ran.
+	 *
+	 * @param <T>  Return type of the work
+	 * @param work Work to do with the write connection, must not close or commit the connection
+	 * @return Result of the work
+	 * @throws SQLException if the work or the commit failed
+	 */
+	<T> T execute(final SQLFunction<Connection, T> work) throws SQLException {
+		if (Thread.currentThread() == thread)
+			return work.apply(groupConnection);
+		final WriteTask<T> task = new WriteTask<>(work);
+		enqueue(task);
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return task.future.get(1, TimeUnit.SECONDS);
+				} catch (final InterruptedException e) {
+					// once the writer took the task its outcome must be waited for, otherwise it may commit unreported
+					if (queue.remove(task))
+						throw new SQLException("Interrupted while waiting for write, it was cancelled", e);
+					interrupted = true;
+				} catch (final ExecutionException e) {
+					throw unwrap(e.getCause());
+				} catch (final TimeoutException e) {
+					// a dead writer rolled back its open group when the connection was closed
+					if (!thread.isAlive() && !task.future.isDone()) {
+						queue.remove(task);
+						task.future.completeExceptionally(new SQLException("SQLite writer was stopped"));
+					}
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Queue a write
+	 *
+	 * @param <T>  Return type of the work
+	 * @param work Work to do with the write connection, must not close or commit the connection
+	 * @return Future completed once the write was committed
+	 */
+	<T> CompletableFuture<T> submit(final SQLFunction<Connection, T> work) {
+		final WriteTask<T> task = new WriteTask<>(work);
+		enqueue(task);
+		return task.future;
+	}
+
+	private void enqueue(final WriteTask<?> task) {
+		// close can't happen between the check and the add, so the thread always sees the task before it stops
+		synchronized (lock) {
+			if (running) {
+				queue.add(task);
+				return;
+			}
+		}
+		task.future.completeExceptionally(new SQLException("SQLite writer is closed"));
+	}
+
+	int getQueueSize() {
+		return queue.size();
+	}
+
+	private void run() {
+		final List<WriteTask<?>> group = new ArrayList<>(MAX_GROUP_SIZE);
+		while (running || !queue.isEmpty()) {
+			try {
+				final WriteTask<?> first = queue.poll(1, TimeUnit.SECONDS);
+				if (first == null)
+					continue;
+				group.add(first);
+				queue.drainTo(group, MAX_GROUP_SIZE - 1);
+				executeGroup(group);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} finally {
+				group.clear();
+			}
+		}
+		// fail anything left if we were interrupted
+		failRemaining();
+	}
+
+	private void executeGroup(final List<WriteTask<?>> group) {
+		final List<WriteTask<?>> done = new ArrayList<>(group.size());
+		try (Connection connection = dataSource.getConnection()) {
+			connection.setAutoCommit(false);
+			groupConnection = connection;
+			try {
+				for (final WriteTask<?> task : group) {
+					final Savepoint savepoint = connection.setSavepoint();
+					try {
+						task.run(connection);
+						connection.releaseSavepoint(savepoint);
+						done.add(task);
+					} catch (final SQLException | RuntimeException e) {
+						connection.rollback(savepoint);
+						task.future.completeExceptionally(e);
+					}
+				}
+				connection.commit();
+			} catch (final SQLException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				groupConnection = null;
+				connection.setAutoCommit(true);
+			}
+			done.forEach(WriteTask::complete);
+		} catch (final SQLException | RuntimeException e) {
+			Log.severe("Failed to commit " + group.size() + " queued writes", e);
+			for (final WriteTask<?> task : group) {
+				task.future.completeExceptionally(e);
+			}
+		}
+	}
+
+	/**
+	 * Stop accepting writes, execute everything already queued and wait for the thread to finish
+	 */
+	void close() {
+		synchronized (lock) {
+			running = false;
+		}
+		try {
+			thread.join(TimeUnit.SECONDS.toMillis(30));
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (thread.isAlive()) {
+			Log.warning("Timed out waiting for queued SQLite writes to finish");
+			thread.interrupt();
+		}
+		failRemaining();
+	}
+
+	private void failRemaining() {
+		WriteTask<?> task;
+		while ((task = queue.poll()) != null) {
+			task.future.completeExceptionally(new SQLException("SQLite writer was stopped"));
+		}
+	}
+
+	private static SQLException unwrap(final Throwable cause) {
+		final Throwable actual = cause instanceof CompletionException && cause.getCause() != null ? cause.getCause() : cause;
+		if (actual instanceof final SQLException sqlException)
+			return sqlException;
+		if (actual instanceof final RuntimeException runtimeException)
+			throw runtimeException;
+		return new SQLException(actual);
+	}
+
+	private static final class WriteTask<T> {
+		private final SQLFunction<Connection, T> work;
+		private final CompletableFuture<T> future = new CompletableFuture<>();
+		private T result;
+
+		private WriteTask(final SQLFunction<Connection, T> work) {
+			this.work = work;
+		}
+
+		private void run(final Connection connection) throws SQLException {
+			result = work.apply(connection);
+		}
+
+		private void complete() {
+			future.complete(result);
+		}
+	}
+}
@@ -0,0 +1,342 @@
+package me.chancesd.sdutils.database;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.Nullable;
+
+import me.chancesd.sdutils.utils.Log;
+
+/**
+ * Cached view of the database schema.
+ * <p>
+ * Tables and their columns are loaded with two metadata queries the first time the catalog is used, primary keys
+ * and indexes of a table are loaded the first time they are requested. {@link Database} refreshes the affected
+ * tables when tables are registered, renamed or deleted, and drops the cache when a schema statement runs
+ * through {@link Database#update(Table, String, Object...)}. Schema changes made through a raw connection are not seen
+ * until {@link #refresh()} is called. Names are matched case-insensitively.
+ */
+public class SchemaCatalog {
+
+	private static final String[] TABLE_TYPES = { "TABLE" };
+	private final Database database;
+	private final Map<String, TableInfo> tables = new ConcurrentHashMap<>();
+	private volatile boolean loaded;
+
+	SchemaCatalog(final Database database) {
+		this.database = database;
+	}
+
+	/**
+	 * @param table Name of the table
+	 * @return Table exists?
+	 */
+	public boolean tableExists(final String table) {
+		return getTable(table) != null;
+	}
+
+	/**
+	 * @param table  Name of the table
+	 * @param column Name of the column
+	 * @return Column exists in the table?
+	 */
+	public boolean columnExists(final String table, final String column) {
+		final TableInfo info = getTable(table);
+		return info != null && info.getColumn(column) != null;
+	}
+
+	/**
+	 * @param table Name of the table
+	 * @return Table information, or null if it doesn't exist or the schema could not be loaded
+	 */
+	@Nullable
+	public TableInfo getTable(final String table) {
+		ensureLoaded();
+		return tables.get(key(table));
+	}
+
+	/**
+	 * @return All tables of the database
+	 */
+	public Collection<TableInfo> getTables() {
+		ensureLoaded();
+		return Collections.unmodifiableCollection(tables.values());
+	}
+
+	/**
+	 * Drop everything cached, the schema is loaded again on the next lookup
+	 */
+	public synchronized void refresh() {
+		tables.clear();
+		loaded = false;
+	}
+
+	/**
+	 * Reload a single table, or forget it if it doesn't exist anymore
+	 *
+	 * @param table Name of the table
+	 */
+	public synchronized void refresh(final String table) {
+		if (!loaded)
+			return;
+		tables.remove(key(table));
+		try (Connection connection = database.getReadConnection()) {
+			load(connection, table);
+		} catch (final SQLException e) {
+			Log.severe("Failed to load schema of table " + table, e);
+		}
+	}
+
+	void remove(final String table) {
+		tables.remove(key(table));
+	}
+
+	private void ensureLoaded() {
+		if (loaded)
+			return;
+		synchronized (this) {
+			if (loaded)
+				return;
+			try (Connection connection = database.getReadConnection()) {
+				load(connection, "%");
+				loaded = true;
+			} catch (final SQLException e) {
+				tables.clear();
+				Log.severe("Failed to load database schema", e);
+			}
+		}
+	}
+
+	/**
+	 * Load tables matching the pattern and their columns.
+	 * Names are compared again after loading because underscores in the pattern match any character.
+	 */
+	private void load(final Connection connection, final String tablePattern) throws SQLException {
+		final DatabaseMetaData metadata = connection.getMetaData();
+		final String catalog = connection.getCatalog();
+		final Map<String, TableInfo> found = new LinkedHashMap<>();
+		try (ResultSet result = metadata.getTables(catalog, null, tablePattern, TABLE_TYPES)) {
+			while (result.next()) {
+				final String name = result.getString("TABLE_NAME");
+				if (matches(tablePattern, name)) {
+					found.put(key(name), new TableInfo(name));
+				}
+			}
+		}
+		try (ResultSet result = metadata.getColumns(catalog, null, tablePattern, "%")) {
+			while (result.next()) {
+				final TableInfo table = found.get(key(result.getString("TABLE_NAME")));
+				if (table != null) {
+					final ColumnInfo column = new ColumnInfo(result.getString("COLUMN_NAME"), result.getInt("DATA_TYPE"), result.getString("TYPE_NAME"),
+							result.getInt("COLUMN_SIZE"), result.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls);
+					table.columns.put(key(column.name), column);
+				}
+			}
+		}
+		tables.putAll(found);
+	}
+
+	private void loadKeys(final TableInfo table) {
+		try (Connection connection = database.getReadConnection()) {
+			final DatabaseMetaData metadata = connection.getMetaData();
+			final String catalog = connection.getCatalog();
+			final Map<Short, String> primaryKey = new TreeMap<>();
+			try (ResultSet result = metadata.getPrimaryKeys(catalog, null, table.name)) {
+				while (result.next()) {
+					primaryKey.put(result.getShort("KEY_SEQ"), result.getString("COLUMN_NAME"));
+				}
+			}
+			final Map<String, IndexInfo> indexes = new LinkedHashMap<>();
+			try (ResultSet result = metadata.getIndexInfo(catalog, null, table.name, false, true)) {
+				while (result.next()) {
+					final String name = result.getString("INDEX_NAME");
+					final String column = result.getString("COLUMN_NAME");
+					if (name == null || column == null)
+						continue;
+					IndexInfo index = indexes.get(name);
+					if (index == null) {
+						index = new IndexInfo(name, !result.getBoolean("NON_UNIQUE"));
+						indexes.put(name, index);
+					}
+					index.columns.add(column);
+				}
+			}
+			table.primaryKey = List.copyOf(primaryKey.values());
+			table.indexes = List.copyOf(indexes.values());
+		} catch (final SQLException e) {
+			Log.severe("Failed to load indexes of table " + table.name, e);
+			table.primaryKey = Collections.emptyList();
+			table.indexes = Collections.emptyList();
+		}
+	}
+
+	private static boolean matches(final String pattern, final String name) {
+		return "%".equals(pattern) || pattern.equalsIgnoreCase(name);
+	}
+
+	private static String key(final String name) {
+		return name.toLowerCase(Locale.ROOT);
+	}
+
+	public final class TableInfo {
+
+		private final String name;
+		private final Map<String, ColumnInfo> columns = new LinkedHashMap<>();
+		private volatile List<String> primaryKey;
+		private volatile List<IndexInfo> indexes;
+
+		private TableInfo(final String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return Columns in table order
+		 */
+		public Collection<ColumnInfo> getColumns() {
+			return Collections.unmodifiableCollection(columns.values());
+		}
+
+		@Nullable
+		public ColumnInfo getColumn(final String column) {
+			return columns.get(key(column));
+		}
+
+		/**
+		 * @return Columns of the primary key in key order, empty if there is none
+		 */
+		public List<String> getPrimaryKey() {
+			if (primaryKey == null) {
+				loadKeys(this);
+			}
+			return primaryKey;
+		}
+
+		/**
+		 * @return Indexes of the table, including the ones backing primary keys and unique constraints
+		 */
+		public List<IndexInfo> getIndexes() {
+			if (indexes == null) {
+				loadKeys(this);
+			}
+			return indexes;
+		}
+
+		/**
+		 * Check if queries filtering on a column can use an index, that is if the column is the first column of the
+		 * primary key or of an index
+		 *
+		 * @param column Name of the column
+		 * @return Column is indexed?
+		 */
+		public boolean isIndexed(final String column) {
+			final List<String> key = getPrimaryKey();
+			if (!key.isEmpty() && key.get(0).equalsIgnoreCase(column))
+				return true;
+			for (final IndexInfo index : getIndexes()) {
+				if (index.columns.get(0).equalsIgnoreCase(column))
+					return true;
+			}
+			return false;
+		}
+
+		@Override
+		public String toString() {
+			return name + columns.values();
+		}
+	}
+
+	public static final class ColumnInfo {
+
+		private final String name;
+		private final int sqlType;
+		private final String typeName;
+		private final int size;
+		private final boolean nullable;
+
+		private ColumnInfo(final String name, final int sqlType, final String typeName, final int size, final boolean nullable) {
+			this.name = name;
+			this.sqlType = sqlType;
+			this.typeName = typeName;
+			this.size = size;
+			this.nullable = nullable;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return Type from {@link java.sql.Types}
+		 */
+		public int getSqlType() {
+			return sqlType;
+		}
+
+		/**
+		 * @return Database specific type name, like VARCHAR or INTEGER
+		 */
+		public String getTypeName() {
+			return typeName;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		public boolean isNullable() {
+			return nullable;
+		}
+
+		@Override
+		public String toString() {
+			return name + " " + typeName;
+		}
+	}
+
+	public static final class IndexInfo {
+
+		private final String name;
+		private final boolean unique;
+		private final List<String> columns = new ArrayList<>();
+
+		private IndexInfo(final String name, final boolean unique) {
+			this.name = name;
+			this.unique = unique;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public boolean isUnique() {
+			return unique;
+		}
+
+		/**
+		 * @return Columns of the index in index order
+		 */
+		public List<String> getColumns() {
+			return Collections.unmodifiableList(columns);
+		}
+
+		@Override
+		public String toString() {
+			return name + columns;
+		}
+	}
+}
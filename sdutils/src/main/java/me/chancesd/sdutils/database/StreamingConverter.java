@@ -0,0 +1,87 @@
+package me.chancesd.sdutils.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Converter that streams the old table in pages instead of loading it as a single result set.
+ * <p>
+ * Pages are read ordered by {@link #getKeyColumn()}, converted in parallel by worker threads and inserted in
+ * batches. Every page is inserted in the same transaction that stores the last converted key, so a conversion
+ * that was interrupted (server crash, kill) continues after the last written page on the next start.
+ * Progress is logged while converting.
+ */
+public interface StreamingConverter extends Converter {
+
+	@Override
+	default boolean onDatabaseLoad(final Database database) {
+		if (!needsConversion(database))
+			return false;
+		// pages and the checkpoint are read from the primary, a lagging replica could skip rows or redo pages
+		return database.readFromPrimary(() -> new ConversionPipeline(database, this).run());
+	}
+
+	/**
+	 * Column of the old table used to page through it and to resume from.
+	 * Must be unique and sortable, like an auto increment id.
+	 *
+	 * @return Key column of the old table
+	 */
+	String getKeyColumn();
+
+	/**
+	 * Columns of the new table that {@link #convert(Map)} returns values for
+	 *
+	 * @return Columns to insert
+	 */
+	Collection<String> getNewColumns();
+
+	/**
+	 * Convert a row of the old table.
+	 * Called from several worker threads at once, so it must not depend on shared mutable state.
+	 *
+	 * @param row Row of the old table, by column name
+	 * @return Values for {@link #getNewColumns()} in the same order, or null to skip the row
+	 */
+	@Nullable
+	List<Object> convert(Map<String, Object> row);
+
+	/**
+	 * @return Amount of rows read and written per page
+	 */
+	default int getPageSize() {
+		return 1000;
+	}
+
+	/**
+	 * @return Amount of threads converting pages in parallel
+	 */
+	default int getWorkers() {
+		return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+	}
+
+	/**
+	 * Convert a loaded result set with {@link #convert(Map)}.
+	 * Only used when this converter is called as a plain {@link Converter}.
+	 */
+	@Override
+	default void convertAll(final Database database, final ResultSet results) throws SQLException {
+		final RowView view = new RowView(results);
+		final List<Collection<Object>> rows = new ArrayList<>();
+		while (results.next()) {
+			final List<Object> converted = convert(view.toMap());
+			if (converted != null) {
+				rows.add(converted);
+			}
+		}
+		final BatchResult result = database.insertColumnsBatch(getNewTable(), getNewColumns(), rows);
+		if (!result.isSuccess())
+			throw result.getFailures().get(0).getError();
+	}
+}
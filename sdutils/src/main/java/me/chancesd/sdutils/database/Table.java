@@ -1,23 +1,230 @@
 package me.chancesd.sdutils.database;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.jetbrains.annotations.Nullable;
+
+import me.chancesd.sdutils.database.DatabaseConfigBuilder.DatabaseType;
+
 public class Table {
 	private final String name;
+	@Nullable
 	private final String usage;
+	private final List<Column> columns;
+	private final Map<String, Column> columnsByName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+	private volatile String values;
+	private final Map<Class<?>, RowMapper<?>> mappers = new ConcurrentHashMap<>();
+	private final QueryTemplates queries;
+	private final List<TableIndex> indexes = new ArrayList<>();
+	private RowCache rowCache;
 
 	public Table(final String name, final String usage) {
 		this.name = name;
 		this.usage = usage;
+		this.columns = Collections.emptyList();
+		this.queries = new QueryTemplates(name);
+	}
+
+	/**
+	 * Create a table from column declarations instead of a usage string.
+	 * The create statement is generated for the dialect of the database and values are bound with the
+	 * setters matching the column types.
+	 *
+	 * @param name    Name of the table
+	 * @param columns Columns of the table, in table order
+	 */
+	public Table(final String name, final Column... columns) {
+		if (columns.length == 0)
+			throw new IllegalArgumentException("A table needs at least one column");
+		this.name = name;
+		this.usage = null;
+		this.columns = List.of(columns);
+		for (final Column column : columns) {
+			columnsByName.put(column.getName(), column);
+		}
+		this.queries = new QueryTemplates(name);
+	}
+
+	/**
+	 * Enable caching of rows read through {@link Database#getRow}, {@link Database#getValue} and {@link Database#contains}.
+	 * Meant for tables with hot rows like player data, not for tables that are mostly written to like logs.
+	 *
+	 * @param maxSize Maximum amount of cached rows
+	 * @param ttl     Time after which a cached row is reloaded
+	 * @param unit    Time unit of the ttl
+	 * @return this
+	 */
+	public Table cacheRows(final int maxSize, final long ttl, final TimeUnit unit) {
+		this.rowCache = new RowCache(maxSize, ttl, unit);
+		return this;
+	}
+
+	/**
+	 * @return The row cache of this table, or null if caching is disabled
+	 */
+	@Nullable
+	public RowCache getRowCache() {
+		return rowCache;
+	}
+
+	/**
+	 * Declare an index, created when the table is registered.
+	 * Columns that are looked up often but aren't the primary key, like a name next to a uuid, should have one.
+	 *
+	 * @param columns Indexed columns, in index order
+	 * @return this
+	 */
+	public Table index(final String... columns) {
+		indexes.add(new TableIndex(name, Arrays.asList(columns), false));
+		return this;
+	}
+
+	/**
+	 * Declare a unique index, created when the table is registered
+	 *
+	 * @param columns Indexed columns, in index order
+	 * @return this
+	 */
+	public Table uniqueIndex(final String... columns) {
+		indexes.add(new TableIndex(name, Arrays.asList(columns), true));
+		return this;
+	}
+
+	/**
+	 * @return Declared indexes
+	 */
+	public List<TableIndex> getIndexes() {
+		return Collections.unmodifiableList(indexes);
+	}
+
+	/**
+	 * Check if a declared index can be used when filtering on a column, that is if the column is its first column
+	 *
+	 * @param column Name of the column
+	 * @return Column is the first column of a declared index?
+	 */
+	public boolean hasIndexOn(final String column) {
+		for (final TableIndex index : indexes) {
+			if (index.getColumns().get(0).equalsIgnoreCase(column))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Register a mapper used by the typed read methods of {@link Database}
+	 *
+	 * @param <T>    Type of the mapped object
+	 * @param type   Class of the mapped object
+	 * @param mapper Mapper for rows of this table
+	 * @return this
+	 */
+	public <T> Table registerMapper(final Class<T> type, final RowMapper<T> mapper) {
+		mappers.put(type, mapper);
+		return this;
+	}
+
+	/**
+	 * Get the mapper registered for a type
+	 *
+	 * @param <T>  Type of the mapped object
+	 * @param type Class of the mapped object
+	 * @return The registered mapper
+	 * @throws IllegalArgumentException if no mapper is registered for the type
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> RowMapper<T> getMapper(final Class<T> type) {
+		final RowMapper<T> mapper = (RowMapper<T>) mappers.get(type);
+		if (mapper == null)
+			throw new IllegalArgumentException("No row mapper registered for " + type.getName() + " in table " + name);
+		return mapper;
+	}
+
+	QueryTemplates queries() {
+		return queries;
 	}
 
 	public String getName() {
 		return this.name;
 	}
 
+	/**
+	 * @return Column definitions for a create table statement, in the SQLite dialect for tables declared with columns
+	 */
 	public String getUsage() {
-		return " (" + usage + ")";
+		return getUsage(DatabaseType.SQLITE);
+	}
+
+	/**
+	 * @param type Database type
+	 * @return Column definitions for a create table statement in the dialect of the database
+	 */
+	public String getUsage(final DatabaseType type) {
+		if (usage != null)
+			return " (" + usage + ")";
+		final StringBuilder definition = new StringBuilder(" (");
+		definition.append(columns.stream().map(column -> column.getDefinition(type)).collect(Collectors.joining(", ")));
+		final List<String> primaryKey = columns.stream().filter(Column::isPrimaryKey).map(Column::getName).toList();
+		final boolean inlineKey = type == DatabaseType.SQLITE && columns.stream().anyMatch(Column::isAutoIncrement);
+		if (!primaryKey.isEmpty() && !inlineKey) {
+			definition.append(", PRIMARY KEY (").append(String.join(", ", primaryKey)).append(')');
+		}
+		return definition.append(')').toString();
+	}
+
+	/**
+	 * @return Declared columns in table order, empty if the table was created with a usage string
+	 */
+	public List<Column> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @param column Name of the column, case insensitive
+	 * @return Declared column, or null if there is none with that name
+	 */
+	@Nullable
+	public Column getColumn(final String column) {
+		return columnsByName.get(column);
+	}
+
+	/**
+	 * Look up the declared columns for a list of column names, for binding values in the same order
+	 *
+	 * @return Declared columns, with null for unknown names, or null if the table has no declared columns
+	 */
+	@Nullable
+	Column[] resolveColumns(final Collection<String> names) {
+		if (columns.isEmpty())
+			return null;
+		final Column[] resolved = new Column[names.size()];
+		int i = 0;
+		for (final String column : names) {
+			resolved[i++] = columnsByName.get(column);
+		}
+		return resolved;
 	}
 
+	/**
+	 * @return Column names of this table formatted as {@code (a,b,c)}
+	 */
 	public String getValues() {
+		if (values == null) {
+			values = columns.isEmpty() ? parseValues() : "(" + columns.stream().map(Column::getName).collect(Collectors.joining(",")) + ")";
+		}
+		return values;
+	}
+
+	private String parseValues() {
 		final StringBuilder v = new StringBuilder();
 		final String[] a = usage.split(",");
 		int i = 0;
@@ -0,0 +1,69 @@
+package me.chancesd.sdutils.database;
+
+import java.util.List;
+
+import me.chancesd.sdutils.database.DatabaseConfigBuilder.DatabaseType;
+
+/**
+ * Secondary index declared on a {@link Table} with {@link Table#index(String...)} or {@link Table#uniqueIndex(String...)}.
+ * Created by {@link Database#registerTable(Table)} if it doesn't exist yet.
+ */
+public class TableIndex {
+
+	// MySQL rejects identifiers longer than this
+	private static final int MAX_NAME_LENGTH = 64;
+	private final String name;
+	private final List<String> columns;
+	private final boolean unique;
+
+	TableIndex(final String table, final List<String> columns, final boolean unique) {
+		if (columns.isEmpty())
+			throw new IllegalArgumentException("An index needs at least one column");
+		this.name = createName("idx_" + table + "_" + String.join("_", columns));
+		this.columns = List.copyOf(columns);
+		this.unique = unique;
+	}
+
+	/**
+	 * Shorten names that are too long, the hash of the full name keeps them unique
+	 */
+	private static String createName(final String fullName) {
+		if (fullName.length() <= MAX_NAME_LENGTH)
+			return fullName;
+		final String hash = String.format("%08x", fullName.hashCode());
+		return fullName.substring(0, MAX_NAME_LENGTH - hash.length() - 1) + "_" + hash;
+	}
+
+	/**
+	 * Get the statement creating this index.
+	 * MySQL has no {@code IF NOT EXISTS} for indexes, so there the caller has to check if it exists first.
+	 *
+	 * @param type  Database type
+	 * @param table Name of the table
+	 * @return Create index statement
+	 */
+	String getCreateStatement(final DatabaseType type, final String table) {
+		return "CREATE " + (unique ? "UNIQUE " : "") + "INDEX " + (type == DatabaseType.SQLITE ? "IF NOT EXISTS " : "") + name + " ON " + table
+				+ " (" + String.join(", ", columns) + ")";
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return Columns in index order
+	 */
+	public List<String> getColumns() {
+		return columns;
+	}
+
+	public boolean isUnique() {
+		return unique;
+	}
+
+	@Override
+	public String toString() {
+		return name + columns;
+	}
+}
@@ -0,0 +1,233 @@
+package me.chancesd.sdutils.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A block of database operations sharing one connection and one transaction,
+ * run with {@link Database#transaction(SQLFunction)}.
+ * <p>
+ * Operations throw {@link SQLException} instead of logging it, so a failing operation aborts the whole unit and
+ * rolls it back. Reads see the writes done earlier in the same unit. Row cache entries of changed rows are
+ * invalidated once the transaction committed.
+ *
+ * <pre>
+ * database.async().transaction(unit -&gt; {
+ * 	final int balance = (int) unit.getValue(accounts, "uuid", "balance", sender);
+ * 	if (balance &lt; amount) {
+ * 		unit.rollback();
+ * 		return false;
+ * 	}
+ * 	unit.updateValues(accounts, "uuid", sender, List.of("balance"), List.of(balance - amount));
+ * 	unit.update(accounts, "UPDATE accounts SET balance = balance + ? WHERE uuid = ?", amount, target);
+ * 	return true;
+ * });
+ * </pre>
+ */
+public class UnitOfWork {
+
+	private final Database database;
+	private final Connection connection;
+	private final List<Runnable> invalidations = new ArrayList<>();
+	private boolean rollbackOnly;
+
+	UnitOfWork(final Database database, final Connection connection) {
+		this.database = database;
+		this.connection = connection;
+	}
+
+	/**
+	 * @see Database#getValue(Table, String, String, Object)
+	 */
+	@Nullable
+	public Object getValue(final Table table, final String index, final String column, final Object value) throws SQLException {
+		return RowCache.getColumn(getRow(table, index, value), column);
+	}
+
+	/**
+	 * @see Database#getRow(Table, String, Object)
+	 */
+	public Map<String, Object> getRow(final Table table, final String index, final Object value) throws SQLException {
+		try (PreparedStatement ps = connection.prepareStatement(table.queries().selectByKey(index))) {
+			Database.bind(ps, 1, table.getColumn(index), value);
+			try (ResultSet result = ps.executeQuery()) {
+				return result.next() ? new RowView(result).toMap() : Collections.emptyMap();
+			}
+		}
+	}
+
+	/**
+	 * @see Database#query(String, RowMapper, Object...)
+	 */
+	public <T> List<T> query(final String sql, final RowMapper<T> mapper, final Object... args) throws SQLException {
+		try (PreparedStatement ps = connection.prepareStatement(sql)) {
+			for (int i = 0; i < args.length; i++) {
+				ps.setObject(i + 1, args[i]);
+			}
+			try (ResultSet result = ps.executeQuery()) {
+				final List<T> rows = new ArrayList<>();
+				final RowView view = new RowView(result);
+				final RowMapper<T> rowMapper = mapper.prepare(view);
+				while (result.next()) {
+					rows.add(rowMapper.map(view));
+				}
+				return rows;
+			}
+		}
+	}
+
+	/**
+	 * @see Database#contains(Table, String, Object)
+	 */
+	public boolean contains(final Table table, final String index, final Object value) throws SQLException {
+		try (PreparedStatement ps = connection.prepareStatement(table.queries().exists(index))) {
+			Database.bind(ps, 1, table.getColumn(index), value);
+			try (ResultSet result = ps.executeQuery()) {
+				return result.next();
+			}
+		}
+	}
+
+	/**
+	 * @see Database#insertColumns(Table, Collection, Collection)
+	 * @return Amount of inserted rows
+	 */
+	public int insertColumns(final Table table, final Collection<String> columns, final Collection<Object> values) throws SQLException {
+		try (PreparedStatement ps = connection.prepareStatement(table.queries().insert(columns))) {
+			Database.bindRow(ps, table.resolveColumns(columns), values);
+			return ps.executeUpdate();
+		}
+	}
+
+	/**
+	 * @see Database#upsert(Table, String, Collection, Collection)
+	 * @return Amount of affected rows as reported by the driver
+	 */
+	public int upsert(final Table table, final String index, final Collection<String> columns, final Collection<Object> values) throws SQLException {
+		try (PreparedStatement ps = connection.prepareStatement(table.queries().upsert(database.getDatabaseType(), index, columns))) {
+			Database.bindRow(ps, table.resolveColumns(columns), values);
+			invalidations.add(() -> database.invalidateRows(table, index, columns, Collections.singletonList(values)));
+			return ps.executeUpdate();
+		}
+	}
+
+	/**
+	 * @see Database#updateValues(Table, String, Object, Collection, Collection)
+	 * @return Amount of updated rows
+	 */
+	public int updateValues(final Table table, final String index, final Object indexValue, final Collection<String> columns,
+			final Collection<Object> values) throws SQLException {
+		try (PreparedStatement ps = connection.prepareStatement(table.queries().update(index, columns))) {
+			Database.bindRow(ps, table.resolveColumns(columns), values);
+			Database.bind(ps, values.size() + 1, table.getColumn(index), indexValue);
+			invalidations.add(() -> database.invalidate(table, index, indexValue));
+			return ps.executeUpdate();
+		}
+	}
+
+	/**
+	 * @see Database#update(Table, String, Object...)
+	 * @return Amount of updated rows
+	 */
+	public int update(final Table table, final String sql, final Object... args) throws SQLException {
+		return executeUpdate(sql, args, () -> database.invalidateAll(table));
+	}
+
+	/**
+	 * @see Database#updateRow(Table, String, Object, String, Object...)
+	 * @return Amount of updated rows
+	 */
+	public int updateRow(final Table table, final String index, final Object indexValue, final String sql, final Object... args)
+			throws SQLException {
+		return executeUpdate(sql, args, () -> database.invalidate(table, index, indexValue));
+	}
+
+	private int executeUpdate(final String sql, final Object[] args, final Runnable invalidation) throws SQLException {
+		try (PreparedStatement ps = connection.prepareStatement(sql)) {
+			for (int i = 0; i < args.length; i++) {
+				ps.setObject(i + 1, args[i]);
+			}
+			invalidations.add(invalidation);
+			return ps.executeUpdate();
+		}
+	}
+
+	/**
+	 * @see Database#remove(Table, String, Object)
+	 * @return Amount of removed rows
+	 */
+	public int remove(final Table table, final String index, final Object value) throws SQLException {
+		try (PreparedStatement ps = connection.prepareStatement(table.queries().delete(index))) {
+			Database.bind(ps, 1, table.getColumn(index), value);
+			invalidations.add(() -> database.invalidate(table, index, value));
+			return ps.executeUpdate();
+		}
+	}
+
+	/**
+	 * Mark a point of this unit that can be rolled back to without aborting the whole unit
+	 *
+	 * @return The savepoint
+	 * @throws SQLException if the savepoint could not be set
+	 */
+	public Savepoint savepoint() throws SQLException {
+		return connection.setSavepoint();
+	}
+
+	/**
+	 * Undo everything done after a savepoint
+	 *
+	 * @param savepoint Savepoint from {@link #savepoint()}
+	 * @throws SQLException if the rollback failed
+	 */
+	public void rollback(final Savepoint savepoint) throws SQLException {
+		connection.rollback(savepoint);
+	}
+
+	/**
+	 * Roll back the whole unit once the work returns, instead of committing it
+	 */
+	public void rollback() {
+		rollbackOnly = true;
+	}
+
+	public boolean isRollbackOnly() {
+		return rollbackOnly;
+	}
+
+	/**
+	 * Get the connection of this unit, for statements not covered by the other methods.
+	 * Don't close it or change its transaction state.
+	 *
+	 * @return Connection of this unit
+	 */
+	public Connection getConnection() {
+		return connection;
+	}
+
+	void applyInvalidations() {
+		invalidations.forEach(Runnable::run);
+	}
+
+	/**
+	 * Thrown to roll back a unit marked with {@link UnitOfWork#rollback()}
+	 */
+	static final class RollbackSignal extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		RollbackSignal() {
+			super(null, null, false, false);
+		}
+	}
+}
@@ -0,0 +1,334 @@
+package me.chancesd.sdutils.database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import me.chancesd.sdutils.scheduler.ScheduleUtils;
+import me.chancesd.sdutils.utils.Log;
+
+/**
+ * Write-behind buffer for a {@link Database}.
+ * <p>
+ * Updates are coalesced per table and index value, so updating the same row many times between flushes
+ * only results in one row update with the latest value of each column. Queued changes are written with
+ * {@link Database#insertColumnsBatch} and {@link Database#updateValuesBatch} once the amount of pending
+ * rows reaches the configured size or when the flush interval elapses, whichever comes first.
+ * <p>
+ * Reads through {@link Database} do not see queued changes until they are flushed. The queue is flushed
+ * synchronously when the database is closed, changes queued after that are written right away on the calling thread.
+ * <p>
+ * Rows that fail to be written are queued again and retried once with the next flush. Updates queued for the
+ * same row in the meantime take precedence over the retried values. Rows that fail again are dropped and logged,
+ * so changes can be lost if the database stays unavailable for longer than a flush interval.
+ */
+public class WriteBehindQueue {
+
+	private final Database database;
+	private final int maxPending;
+	private final Map<UpdateKey, Map<String, Object>> updates = new LinkedHashMap<>();
+	private final Map<InsertKey, List<Collection<Object>>> inserts = new LinkedHashMap<>();
+	// rows queued again after a failed write, dropped if they fail once more
+	private final Set<Collection<Object>> retriedInserts = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final Set<UpdateKey> retriedUpdates = new HashSet<>();
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+	private final Object flushLock = new Object();
+	private final ScheduledFuture<?> flushTask;
+	private int pendingInserts;
+	// set under the queue lock, rows queued after the last flush are written right away instead
+	private boolean closed;
+
+	WriteBehindQueue(final Database database, final int maxPending, final long flushInterval, final TimeUnit unit) {
+		this.database = database;
+		this.maxPending = maxPending;
+		this.flushTask = ScheduleUtils.runAsyncTimer(this::flush, flushInterval, flushInterval, unit);
+	}
+
+	/**
+	 * Queue an update of a single column
+	 *
+	 * @param table      Table to update
+	 * @param index      Index to search with
+	 * @param indexValue Value to search with
+	 * @param column     Column to update
+	 * @param value      New value
+	 */
+	public void queueUpdate(final Table table, final String index, final Object indexValue, final String column, final Object value) {
+		final boolean queued;
+		synchronized (this) {
+			queued = !closed;
+			if (queued) {
+				updates.computeIfAbsent(new UpdateKey(table, index, indexValue), k -> new LinkedHashMap<>()).put(column, value);
+			}
+		}
+		if (queued) {
+			checkSize();
+		} else {
+			database.update(table, index, column, indexValue, value);
+		}
+	}
+
+	/**
+	 * Queue an update of multiple columns.
+	 * Columns already queued for the same row are overwritten with the new values.
+	 *
+	 * @param table      Table to update
+	 * @param index      Index to search with
+	 * @param indexValue Value to search with
+	 * @param columns    Columns to update
+	 * @param values     New values, in the same order as the columns
+	 */
+	public void queueUpdate(final Table table, final String index, final Object indexValue, final Collection<String> columns,
+			final Collection<Object> values) {
+		if (columns.size() != values.size())
+			throw new IllegalArgumentException("Expected " + columns.size() + " values but got " + values.size());
+		final boolean queued;
+		synchronized (this) {
+			queued = !closed;
+			if (queued) {
+				final Map<String, Object> row = updates.computeIfAbsent(new UpdateKey(table, index, indexValue), k -> new LinkedHashMap<>());
+				final Iterator<Object> valueIterator = values.iterator();
+				for (final String column : columns) {
+					row.put(column, valueIterator.next());
+				}
+			}
+		}
+		if (queued) {
+			checkSize();
+		} else {
+			database.updateValues(table, index, indexValue, columns, values);
+		}
+	}
+
+	/**
+	 * Queue a new row to be inserted.
+	 * Queued inserts are always written before queued updates.
+	 *
+	 * @param table   Table to insert data in
+	 * @param columns Column names
+	 * @param values  Values to insert, in the same order as the columns
+	 */
+	public void queueInsert(final Table table, final Collection<String> columns, final Collection<Object> values) {
+		final boolean queued;
+		synchronized (this) {
+			queued = !closed;
+			if (queued) {
+				inserts.computeIfAbsent(new InsertKey(table, columns), k -> new ArrayList<>()).add(new ArrayList<>(values));
+				pendingInserts++;
+			}
+		}
+		if (queued) {
+			checkSize();
+		} else {
+			database.insertColumns(table, columns, values);
+		}
+	}
+
+	/**
+	 * @return Amount of rows waiting to be written
+	 */
+	public synchronized int getPendingCount() {
+		return updates.size() + pendingInserts;
+	}
+
+	/**
+	 * Write all queued changes to the database on the calling thread
+	 */
+	public void flush() {
+		synchronized (flushLock) {
+			flushScheduled.set(false);
+			final Map<UpdateKey, Map<String, Object>> pendingUpdates;
+			final Map<InsertKey, List<Collection<Object>>> pendingInsertRows;
+			final Set<Collection<Object>> lastTryInserts;
+			final Set<UpdateKey> lastTryUpdates;
+			synchronized (this) {
+				if (updates.isEmpty() && inserts.isEmpty())
+					return;
+				pendingUpdates = new LinkedHashMap<>(updates);
+				pendingInsertRows = new LinkedHashMap<>(inserts);
+				lastTryInserts = Collections.newSetFromMap(new IdentityHashMap<>());
+				lastTryInserts.addAll(retriedInserts);
+				lastTryUpdates = new HashSet<>(retriedUpdates);
+				updates.clear();
+				inserts.clear();
+				retriedInserts.clear();
+				retriedUpdates.clear();
+				pendingInserts = 0;
+			}
+			for (final Map.Entry<InsertKey, List<Collection<Object>>> entry : pendingInsertRows.entrySet()) {
+				final InsertKey key = entry.getKey();
+				final List<Collection<Object>> rows = entry.getValue();
+				final BatchResult result = database.insertColumnsBatch(key.table, key.columns, rows);
+				if (result.isSuccess())
+					continue;
+				int dropped = 0;
+				synchronized (this) {
+					for (final BatchResult.Chunk chunk : result.getFailures()) {
+						for (final Collection<Object> row : rows.subList(chunk.getFirstRow(), chunk.getFirstRow() + chunk.getSize())) {
+							if (lastTryInserts.contains(row)) {
+								dropped++;
+								continue;
+							}
+							inserts.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+							retriedInserts.add(row);
+							pendingInserts++;
+						}
+					}
+				}
+				logFailures("insert", key.table, result, dropped);
+			}
+			// rows that had the same set of columns updated can share one batch statement
+			final Map<BatchKey, Map<Object, Collection<Object>>> batches = new LinkedHashMap<>();
+			for (final Map.Entry<UpdateKey, Map<String, Object>> entry : pendingUpdates.entrySet()) {
+				final UpdateKey key = entry.getKey();
+				final Map<String, Object> row = entry.getValue();
+				batches.computeIfAbsent(new BatchKey(key.table, key.index, row.keySet()), k -> new LinkedHashMap<>())
+						.put(key.indexValue, row.values());
+			}
+			for (final Map.Entry<BatchKey, Map<Object, Collection<Object>>> entry : batches.entrySet()) {
+				final BatchKey key = entry.getKey();
+				final BatchResult result = database.updateValuesBatch(key.table, key.index, key.columns, entry.getValue());
+				if (result.isSuccess())
+					continue;
+				final List<Object> indexValues = new ArrayList<>(entry.getValue().keySet());
+				int dropped = 0;
+				synchronized (this) {
+					for (final BatchResult.Chunk chunk : result.getFailures()) {
+						for (final Object indexValue : indexValues.subList(chunk.getFirstRow(), chunk.getFirstRow() + chunk.getSize())) {
+							final UpdateKey updateKey = new UpdateKey(key.table, key.index, indexValue);
+							if (lastTryUpdates.contains(updateKey)) {
+								dropped++;
+								continue;
+							}
+							// values queued since the flush started are newer, keep them
+							final Map<String, Object> row = updates.computeIfAbsent(updateKey, k -> new LinkedHashMap<>());
+							pendingUpdates.get(updateKey).forEach(row::putIfAbsent);
+							retriedUpdates.add(updateKey);
+						}
+					}
+				}
+				logFailures("update", key.table, result, dropped);
+			}
+			Log.debugLazy(() -> "Flushed " + pendingUpdates.size() + " queued updates and " + pendingInsertRows.size() + " insert batches");
+		}
+	}
+
+	private static void logFailures(final String operation, final Table table, final BatchResult result, final int dropped) {
+		final SQLException error = result.getFailures().get(0).getError();
+		final int retried = result.getFailedRows() - dropped;
+		Log.warning("Failed to write " + result.getFailedRows() + " queued " + operation + " rows to " + table.getName()
+				+ (retried > 0 ? ", retrying " + retried + " with the next flush" : "")
+				+ (dropped > 0 ? ", dropped " + dropped + " that failed before" : "") + ": " + (error != null ? error.getMessage() : "unknown error"));
+	}
+
+	private void checkSize() {
+		if (getPendingCount() >= maxPending && flushScheduled.compareAndSet(false, true)) {
+			// a rejected flush would otherwise block size triggered flushes until the timer runs
+			database.runAsync(this::flush).whenComplete((v, e) -> {
+				if (e != null) {
+					flushScheduled.set(false);
+				}
+			});
+		}
+	}
+
+	void close() {
+		if (flushTask != null) {
+			flushTask.cancel(false);
+		}
+		synchronized (this) {
+			closed = true;
+		}
+		flush();
+		// retry rows that failed in the first flush before they are lost
+		flush();
+	}
+
+	private static final class UpdateKey {
+		private final Table table;
+		private final String index;
+		private final Object indexValue;
+
+		private UpdateKey(final Table table, final String index, final Object indexValue) {
+			this.table = table;
+			this.index = index;
+			this.indexValue = indexValue;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof final UpdateKey other))
+				return false;
+			return table == other.table && index.equals(other.index) && Objects.equals(indexValue, other.indexValue);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(table.getName(), index, indexValue);
+		}
+	}
+
+	private static final class InsertKey {
+		private final Table table;
+		private final List<String> columns;
+
+		private InsertKey(final Table table, final Collection<String> columns) {
+			this.table = table;
+			this.columns = new ArrayList<>(columns);
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof final InsertKey other))
+				return false;
+			return table == other.table && columns.equals(other.columns);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(table.getName(), columns);
+		}
+	}
+
+	private static final class BatchKey {
+		private final Table table;
+		private final String index;
+		private final List<String> columns;
+
+		private BatchKey(final Table table, final String index, final Collection<String> columns) {
+			this.table = table;
+			this.index = index;
+			this.columns = new ArrayList<>(columns);
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof final BatchKey other))
+				return false;
+			return table == other.table && index.equals(other.index) && columns.equals(other.columns);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(table.getName(), index, columns);
+		}
+	}
+}
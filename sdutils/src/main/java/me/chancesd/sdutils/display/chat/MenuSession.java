@@ -1,5 +1,6 @@
 package me.chancesd.sdutils.display.chat;
 
+import me.chancesd.sdutils.display.chat.content.PagedContentProvider;
 import me.chancesd.sdutils.utils.ChatUtils;
 import me.chancesd.sdutils.utils.MCVersion;
 
@@ -48,16 +49,25 @@ public class MenuSession {
     }
 
     public void showPage(final int page) {
-        final List<ChatLine> content = menu.getContent(sender);
-        final int totalPages = calculateTotalPages(content.size());
-
-        if (page < 1 || page > totalPages) {
-            return;
+        final List<ChatLine> lines;
+        final int totalPages;
+        if (menu.getContentProvider() instanceof final PagedContentProvider paged) {
+            // Only load the requested page
+            totalPages = calculateTotalPages(paged.getTotalLines(sender));
+            if (page < 1 || page > totalPages) {
+                return;
+            }
+            lines = paged.getPage(sender, page, menu.getLinesPerPage());
+        } else {
+            final List<ChatLine> content = menu.getContent(sender);
+            totalPages = calculateTotalPages(content.size());
+            if (page < 1 || page > totalPages) {
+                return;
+            }
+            final int startIndex = (page - 1) * menu.getLinesPerPage();
+            lines = content.subList(startIndex, Math.min(startIndex + menu.getLinesPerPage(), content.size()));
         }
 
-        final int startIndex = (page - 1) * menu.getLinesPerPage();
-        final int endIndex = Math.min(startIndex + menu.getLinesPerPage(), content.size());
-
         // Send header
         if (menu.getHeader() != null) {
             final String header = replacePlaceholders(menu.getHeader(), page, totalPages);
@@ -66,8 +76,8 @@ public class MenuSession {
         }
 
         // Send content lines
-        for (int i = startIndex; i < endIndex; i++) {
-            sendMessage(content.get(i));
+        for (final ChatLine line : lines) {
+            sendMessage(line);
         }
 
         // Send empty line for spacing
@@ -0,0 +1,122 @@
+package me.chancesd.sdutils.display.chat.content;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import me.chancesd.sdutils.database.Database;
+import me.chancesd.sdutils.database.Page;
+import me.chancesd.sdutils.database.PageQuery;
+import me.chancesd.sdutils.database.RowMapper;
+import me.chancesd.sdutils.display.chat.ChatLine;
+
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Content provider that reads each page from a database table with keyset pagination.
+ * <p>
+ * The cursor where every visited page starts is remembered, so moving to the next or previous page is a single
+ * indexed query no matter how deep the page is. Jumping to an unvisited page skips forward from the closest known
+ * cursor reading only the order columns. Cursors and the row count are kept for a minute, after which pages are
+ * recalculated to pick up changes. Queries run on the calling thread, so show the menu from an async task.
+ *
+ * <pre>
+ * final PageQuery topKills = PageQuery.of(players, "kills").tieBreaker("uuid").descending();
+ * ChatMenu.builder()
+ * 		.header("&6Top Kills &7({page}/{total})")
+ * 		.contentProvider(new DatabaseContentProvider&lt;&gt;(database, topKills, PlayerStats::fromRow,
+ * 				(position, stats) -&gt; new ChatLine("&e#" + position + " &f" + stats.getName() + " &7- " + stats.getKills())))
+ * 		.build();
+ * </pre>
+ *
+ * @param <T> Type of the mapped rows
+ */
+public class DatabaseContentProvider<T> implements PagedContentProvider {
+    private static final long EXPIRY = TimeUnit.MINUTES.toMillis(1);
+    private static final int MAX_CURSORS = 1000;
+    private final Database database;
+    private final PageQuery query;
+    private final RowMapper<T> mapper;
+    private final BiFunction<Integer, T, ChatLine> formatter;
+    private final NavigableMap<Integer, String> cursors = new ConcurrentSkipListMap<>();
+    private volatile int totalLines = -1;
+    private volatile long expiresAt;
+
+    /**
+     * @param database  Database to read from
+     * @param query     Table and ordering of the content
+     * @param mapper    Mapper for each row
+     * @param formatter Creates the line of a row from its position, starting at 1, and the mapped row
+     */
+    public DatabaseContentProvider(@NotNull final Database database, @NotNull final PageQuery query, @NotNull final RowMapper<T> mapper,
+            @NotNull final BiFunction<Integer, T, ChatLine> formatter) {
+        this.database = database;
+        this.query = query;
+        this.mapper = mapper;
+        this.formatter = formatter;
+    }
+
+    @Override
+    @NotNull
+    public List<ChatLine> getPage(final CommandSender sender, final int page, final int linesPerPage) {
+        checkExpired();
+        final int offset = (page - 1) * linesPerPage;
+        final String cursor = findCursor(offset);
+        if (offset > 0 && cursor == null)
+            return new ArrayList<>();
+
+        final Page<T> result = database.getPage(query, cursor, linesPerPage, mapper);
+        if (result.getNextCursor() != null && cursors.size() < MAX_CURSORS) {
+            cursors.put(offset + linesPerPage, result.getNextCursor());
+        }
+        final List<ChatLine> lines = new ArrayList<>(result.getItems().size());
+        for (final T row : result.getItems()) {
+            lines.add(formatter.apply(offset + lines.size() + 1, row));
+        }
+        return lines;
+    }
+
+    @Override
+    public int getTotalLines(final CommandSender sender) {
+        checkExpired();
+        if (totalLines < 0) {
+            totalLines = database.executeCountQuery(query.getTable(), "");
+        }
+        return totalLines;
+    }
+
+    /**
+     * Forget the remembered cursors and row count, so the next page shown reflects the current table
+     */
+    public void invalidate() {
+        cursors.clear();
+        totalLines = -1;
+    }
+
+    private void checkExpired() {
+        final long now = System.currentTimeMillis();
+        if (now >= expiresAt) {
+            invalidate();
+            expiresAt = now + EXPIRY;
+        }
+    }
+
+    private String findCursor(final int offset) {
+        if (offset == 0)
+            return null;
+        final Map.Entry<Integer, String> closest = cursors.floorEntry(offset);
+        if (closest != null && closest.getKey() == offset)
+            return closest.getValue();
+
+        final String cursor = database.getCursor(query, closest != null ? closest.getValue() : null, offset - (closest != null ? closest.getKey() : 0));
+        if (cursor != null && cursors.size() < MAX_CURSORS) {
+            cursors.put(offset, cursor);
+        }
+        return cursor;
+    }
+}
@@ -0,0 +1,39 @@
+package me.chancesd.sdutils.display.chat.content;
+
+import java.util.List;
+
+import me.chancesd.sdutils.display.chat.ChatLine;
+
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Content provider that loads only the page being shown instead of the whole content.
+ * Menus use it for content too large to build in full, like leaderboards read from a database.
+ */
+public interface PagedContentProvider extends ContentProvider {
+    /**
+     * Get the lines of a single page
+     *
+     * @param sender       The sender to get content for
+     * @param page         The page number, starting at 1
+     * @param linesPerPage The amount of lines in a page
+     * @return List of chat lines to display, at most linesPerPage
+     */
+    @NotNull
+    List<ChatLine> getPage(final CommandSender sender, final int page, final int linesPerPage);
+
+    /**
+     * Get the total amount of lines, used to calculate the amount of pages
+     *
+     * @param sender The sender to get content for
+     * @return The total amount of lines
+     */
+    int getTotalLines(final CommandSender sender);
+
+    @Override
+    @NotNull
+    default List<ChatLine> getContent(final CommandSender sender) {
+        return getPage(sender, 1, Math.max(1, getTotalLines(sender)));
+    }
+}
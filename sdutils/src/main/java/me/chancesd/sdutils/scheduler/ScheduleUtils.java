@@ -8,11 +8,13 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import org.bukkit.Bukkit;
@@ -369,6 +371,7 @@ public class ScheduleUtils {
 	/**
 	 * Creates a new bounded cached thread pool that won't reject tasks.
 	 * This pool will queue tasks when all threads are busy rather than rejecting them.
+	 * Tasks are only rejected once the pool is shut down.
 	 *
 	 * @param corePoolSize  The minimum number of threads
 	 * @param maxPoolSize   The maximum number of threads
@@ -386,11 +389,17 @@ public class ScheduleUtils {
 		};
 		final ThreadPoolExecutor threadPool = new ThreadPoolExecutor(corePoolSize, maxPoolSize, 60, TimeUnit.SECONDS, queue, threadFactory);
 		threadPool.setRejectedExecutionHandler((runnable, poolExecutor) -> {
+			if (poolExecutor.isShutdown())
+				throw new RejectedExecutionException("Executor is shut down");
 			try {
 				poolExecutor.getQueue().put(runnable);
 			} catch (final InterruptedException e) {
 				Thread.currentThread().interrupt();
+				throw new RejectedExecutionException("Interrupted while queueing task", e);
 			}
+			// shut down while queueing, nothing may be left to run it
+			if (poolExecutor.isShutdown() && poolExecutor.getQueue().remove(runnable))
+				throw new RejectedExecutionException("Executor is shut down");
 		});
 		return threadPool;
 	}
@@ -417,6 +426,29 @@ public class ScheduleUtils {
 		return result;
 	}
 
+	/**
+	 * Wraps a CompletableFuture's thenAccept to ensure the action receives the result on the main thread
+	 * with proper exception logging. Useful for handing results of async work (e.g. database reads)
+	 * back to code that must touch the Bukkit API.
+	 *
+	 * @param <T>    The result type of the future
+	 * @param future The CompletableFuture to attach to
+	 * @param action The action to run on the main thread with the future's result
+	 * @return A new CompletableFuture with exception logging
+	 */
+	public static <T> CompletableFuture<Void> thenAcceptSync(final CompletableFuture<T> future, final Consumer<? super T> action) {
+		final CompletableFuture<Void> result = new CompletableFuture<>();
+		future.thenAccept(value -> provider.runTask(new ExceptionRunnable(() -> {
+			action.accept(value);
+			result.complete(null);
+		}))).exceptionally(throwable -> {
+			Log.severe("Exception in async chain before thenAcceptSync: " + throwable.getMessage(), throwable);
+			result.completeExceptionally(throwable);
+			return null;
+		});
+		return result;
+	}
+
 	private static boolean checkFolia() {
 		try {
 			Class.forName("io.papermc.paper.threadedregions.RegionizedServerInitEvent");
@@ -0,0 +1,113 @@
+package me.chancesd.sdutils.database;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchResultTest {
+
+    private static final Table PLAYERS = new Table("players", "uuid VARCHAR(36) NOT NULL PRIMARY KEY, kills INT NOT NULL");
+    private static final List<String> COLUMNS = Arrays.asList("uuid", "kills");
+
+    @TempDir
+    File folder;
+    private Database database;
+
+    @BeforeAll
+    static void beforeAll() {
+        TestDatabases.setupServer();
+    }
+
+    @BeforeEach
+    void open() {
+        final DatabaseFactory factory = new DatabaseFactory(TestDatabases.plugin(new YamlConfiguration()));
+        database = factory.getDatabase(new DatabaseConfigBuilder(new File(folder, "database.db")).batchSize(2));
+        database.registerTable(PLAYERS);
+        assertTrue(database.insertColumns(PLAYERS, COLUMNS, Arrays.asList("x", 0)));
+    }
+
+    @AfterEach
+    void close() {
+        database.close();
+    }
+
+    private static void assertChunk(final BatchResult.Chunk chunk, final int firstRow, final int size, final boolean success) {
+        assertEquals(firstRow, chunk.getFirstRow());
+        assertEquals(size, chunk.getSize());
+        assertEquals(success, chunk.isSuccess());
+        assertEquals(success, chunk.getError() == null);
+    }
+
+    @Test
+    void testCommitsEachChunk() {
+        final BatchResult result = database.insertColumnsBatch(PLAYERS, COLUMNS,
+                Arrays.asList(Arrays.asList("a", 1), Arrays.asList("b", 1), Arrays.asList("c", 1)));
+        assertTrue(result.isSuccess());
+        assertEquals(2, result.getChunks().size());
+        assertChunk(result.getChunks().get(0), 0, 2, true);
+        assertChunk(result.getChunks().get(1), 2, 1, true);
+        assertEquals(3, result.getSuccessfulRows());
+        assertEquals(3, result.getAffectedRows());
+        assertTrue(database.contains(PLAYERS, "uuid", "c"));
+    }
+
+    @Test
+    void testRollsBackOnlyTheFailingChunk() {
+        // the duplicate "x" fails the second chunk
+        final BatchResult result = database.insertColumnsBatch(PLAYERS, COLUMNS, Arrays.asList(Arrays.asList("a", 1),
+                Arrays.asList("b", 1), Arrays.asList("c", 1), Arrays.asList("x", 1), Arrays.asList("d", 1)));
+        assertFalse(result.isSuccess());
+        assertEquals(3, result.getChunks().size());
+        assertChunk(result.getChunks().get(0), 0, 2, true);
+        assertChunk(result.getChunks().get(1), 2, 2, false);
+        assertChunk(result.getChunks().get(2), 4, 1, true);
+        assertEquals(1, result.getFailures().size());
+        assertEquals(3, result.getSuccessfulRows());
+        assertEquals(2, result.getFailedRows());
+
+        assertTrue(database.contains(PLAYERS, "uuid", "b"));
+        assertFalse(database.contains(PLAYERS, "uuid", "c"));
+        assertTrue(database.contains(PLAYERS, "uuid", "d"));
+    }
+
+    @Test
+    void testBindFailureFailsTheRemainingRows() {
+        final BatchResult result = database.insertColumnsBatch(PLAYERS, COLUMNS,
+                Arrays.asList(Arrays.asList("a", 1), Arrays.asList("b", 1), Arrays.asList("c"), Arrays.asList("d", 1)));
+        assertEquals(2, result.getChunks().size());
+        assertChunk(result.getChunks().get(0), 0, 2, true);
+        assertChunk(result.getChunks().get(1), 2, 2, false);
+        assertTrue(database.contains(PLAYERS, "uuid", "b"));
+        assertFalse(database.contains(PLAYERS, "uuid", "d"));
+    }
+
+    @Test
+    void testUpdateBatchReportsFailingChunk() {
+        assertTrue(database.insertColumnsBatch(PLAYERS, COLUMNS,
+                Arrays.asList(Arrays.asList("a", 0), Arrays.asList("b", 0), Arrays.asList("c", 0))).isSuccess());
+        final Map<Object, Collection<Object>> rows = new LinkedHashMap<>();
+        rows.put("a", Arrays.asList(5));
+        rows.put("b", Arrays.asList(5));
+        // kills is NOT NULL
+        rows.put("c", Arrays.asList((Object) null));
+        final BatchResult result = database.updateValuesBatch(PLAYERS, "uuid", Arrays.asList("kills"), rows);
+        assertEquals(2, result.getChunks().size());
+        assertChunk(result.getChunks().get(0), 0, 2, true);
+        assertChunk(result.getChunks().get(1), 2, 1, false);
+        assertEquals(2, result.getAffectedRows());
+        assertEquals(5, ((Number) database.getValue(PLAYERS, "uuid", "kills", "b")).intValue());
+        assertEquals(0, ((Number) database.getValue(PLAYERS, "uuid", "kills", "c")).intValue());
+    }
+}
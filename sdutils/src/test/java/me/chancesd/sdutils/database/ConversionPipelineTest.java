@@ -0,0 +1,175 @@
+package me.chancesd.sdutils.database;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ConversionPipelineTest {
+
+    private static final Table OLD_TABLE = new Table("old_kills", "id INTEGER PRIMARY KEY, player VARCHAR(36) NOT NULL");
+    private static final Table NEW_TABLE = new Table("new_kills", "id INTEGER PRIMARY KEY, player VARCHAR(36) NOT NULL");
+    private static final int ROWS = 50;
+
+    @TempDir
+    File folder;
+
+    @BeforeAll
+    static void beforeAll() {
+        TestDatabases.setupServer();
+    }
+
+    @Test
+    void testResumeFromCheckpoint() {
+        final YamlConfiguration defaults = new YamlConfiguration();
+        defaults.set("Database Version", 2);
+        final YamlConfiguration config = new YamlConfiguration();
+        config.setDefaults(defaults);
+        config.set("Database Version", 1);
+        final DatabaseFactory factory = new DatabaseFactory(TestDatabases.plugin(config));
+        final File file = new File(folder, "database.db");
+
+        final Database seed = factory.getDatabase(new DatabaseConfigBuilder(file));
+        try {
+            seed.registerTable(OLD_TABLE);
+            final List<Collection<Object>> rows = new ArrayList<>();
+            for (int i = 1; i <= ROWS; i++) {
+                rows.add(Arrays.asList(i, "player" + i));
+            }
+            assertTrue(seed.insertColumnsBatch(OLD_TABLE, Arrays.asList("id", "player"), rows).isSuccess());
+        } finally {
+            seed.close();
+        }
+
+        final CountingConverter plain = new CountingConverter();
+        final KillConverter converter = new KillConverter();
+        factory.registerConverter(plain);
+        factory.registerConverter(converter);
+        converter.failAt = 25;
+        final Database failed = factory.getDatabase(new DatabaseConfigBuilder(file));
+        try {
+            // the first two pages were written with their checkpoint, the version stays so it runs again
+            assertEquals(1, config.getInt("Database Version"));
+            assertEquals(0, converter.completed);
+            assertEquals(1, plain.runs);
+            assertTrue(failed.contains(DatabaseFactory.CONVERSIONS, "converter", "old_kills->kill_totals"));
+            assertEquals(20, failed.executeCountQuery(NEW_TABLE, ""));
+            assertEquals("20", failed.getValue(ConversionPipeline.CHECKPOINTS, "converter", "last_key", "old_kills->new_kills"));
+        } finally {
+            failed.close();
+        }
+
+        converter.failAt = -1;
+        converter.converted.clear();
+        final Database resumed = factory.getDatabase(new DatabaseConfigBuilder(file));
+        try {
+            assertEquals(2, config.getInt("Database Version"));
+            assertEquals(1, converter.completed);
+            // the plain converter already finished in the failed pass and is not run again
+            assertEquals(1, plain.runs);
+            assertFalse(resumed.contains(DatabaseFactory.CONVERSIONS, "converter", "old_kills->kill_totals"));
+            assertEquals(21, converter.converted.stream().mapToInt(Integer::intValue).min().getAsInt());
+            assertEquals(ROWS, resumed.executeCountQuery(NEW_TABLE, ""));
+            assertNull(resumed.getValue(ConversionPipeline.CHECKPOINTS, "converter", "last_key", "old_kills->new_kills"));
+        } finally {
+            resumed.close();
+        }
+    }
+
+    private static class CountingConverter implements Converter {
+
+        private int runs;
+
+        @Override
+        public void convertAll(final Database database, final ResultSet results) throws SQLException {
+            runs++;
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        @Override
+        public Table getOldTable() {
+            return OLD_TABLE;
+        }
+
+        @Override
+        public Table getNewTable() {
+            return new Table("kill_totals", "player VARCHAR(36) NOT NULL PRIMARY KEY, kills INT NOT NULL");
+        }
+
+        @Override
+        public int getMinimumDatabaseVersion() {
+            return 2;
+        }
+    }
+
+    private static class KillConverter implements StreamingConverter {
+
+        private final List<Integer> converted = new CopyOnWriteArrayList<>();
+        private volatile int failAt = -1;
+        private int completed;
+
+        @Override
+        public String getKeyColumn() {
+            return "id";
+        }
+
+        @Override
+        public Collection<String> getNewColumns() {
+            return Arrays.asList("id", "player");
+        }
+
+        @Override
+        public List<Object> convert(final Map<String, Object> row) {
+            final int id = ((Number) row.get("id")).intValue();
+            if (id == failAt)
+                throw new IllegalStateException("Conversion failed at row " + id);
+            converted.add(id);
+            return Arrays.asList(id, row.get("player"));
+        }
+
+        @Override
+        public int getPageSize() {
+            return 10;
+        }
+
+        @Override
+        public int getWorkers() {
+            return 1;
+        }
+
+        @Override
+        public void onComplete() {
+            completed++;
+        }
+
+        @Override
+        public Table getOldTable() {
+            return OLD_TABLE;
+        }
+
+        @Override
+        public Table getNewTable() {
+            return NEW_TABLE;
+        }
+
+        @Override
+        public int getMinimumDatabaseVersion() {
+            return 2;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package me.chancesd.sdutils.database;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseMetricsTest {
+
+    @Test
+    void testHistogramBuckets() {
+        final DatabaseMetrics.Histogram histogram = new DatabaseMetrics.Histogram(new long[] { 10, 100 });
+        histogram.add(5);
+        histogram.add(10);
+        histogram.add(50);
+        histogram.add(500);
+        assertArrayEquals(new long[] { 1, 2, 1 }, histogram.getBuckets());
+        assertEquals(4, histogram.getCount());
+        assertEquals(500, histogram.getMax());
+        assertEquals(141.25, histogram.getMean());
+        assertEquals(10, histogram.getPercentile(25));
+        assertEquals(100, histogram.getPercentile(75));
+        assertEquals(500, histogram.getPercentile(100));
+    }
+
+    @Test
+    void testRecordByOperationAndTable() {
+        final DatabaseMetrics metrics = new DatabaseMetrics(-1);
+        final long start = System.nanoTime();
+        metrics.record("getRow", "players", start);
+        metrics.record("getRow", "players", start);
+        metrics.record("getRow", "kills", start);
+        metrics.recordBatch("insert", 200);
+        metrics.recordFailure("getRow");
+        assertEquals(2, metrics.getLatency("getRow", "players").getCount());
+        assertEquals(1, metrics.getLatency("getRow", "kills").getCount());
+        assertNull(metrics.getLatency("remove", "players"));
+        assertEquals(200, metrics.getBatchSizes().get("insert").getMax());
+        assertEquals(1, metrics.getFailures().get("getRow").longValue());
+        assertEquals(0, metrics.getSlowQueries());
+        assertEquals(-1, metrics.getSlowQueryThreshold());
+    }
+
+    @Test
+    void testRecordsSubMillisecondLatencies() {
+        final DatabaseMetrics metrics = new DatabaseMetrics(-1);
+        metrics.record("getRow", "players", System.nanoTime() - 300_000);
+        final DatabaseMetrics.Histogram latency = metrics.getLatency("getRow", "players");
+        assertTrue(latency.getMean() >= 300);
+        assertEquals(0, latency.getBuckets()[0]);
+    }
+
+    @Test
+    void testRecordsLogTableBucketsUnderLogTable() {
+        final DatabaseMetrics metrics = new DatabaseMetrics(-1);
+        metrics.addLogBucket("kills_20240131", "kills");
+        metrics.addLogBucket("kills_20240201", "kills");
+        final long start = System.nanoTime();
+        metrics.record("insertBatch", "kills_20240131", start);
+        metrics.record("insertBatch", "kills_20240201", start);
+        metrics.record("insertBatch", "kills_archive", start);
+        assertEquals(2, metrics.getLatency("insertBatch", "kills").getCount());
+        assertEquals(1, metrics.getLatency("insertBatch", "kills_archive").getCount());
+        assertEquals(2, metrics.getLatencies().size());
+        metrics.removeLogBucket("KILLS_20240131");
+        metrics.record("deleteTable", "kills_20240131", start);
+        assertEquals(1, metrics.getLatency("deleteTable", "kills_20240131").getCount());
+    }
+}
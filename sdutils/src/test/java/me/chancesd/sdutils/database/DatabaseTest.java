@@ -0,0 +1,78 @@
+package me.chancesd.sdutils.database;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DatabaseTest {
+
+    private static final Table PLAYERS = new Table("players", "uuid VARCHAR(36) NOT NULL PRIMARY KEY, kills INT NOT NULL")
+            .cacheRows(10, 1, TimeUnit.MINUTES);
+
+    @TempDir
+    File folder;
+    private Database database;
+
+    @BeforeAll
+    static void beforeAll() {
+        TestDatabases.setupServer();
+    }
+
+    @BeforeEach
+    void open() {
+        final DatabaseFactory factory = new DatabaseFactory(TestDatabases.plugin(new YamlConfiguration()));
+        database = factory.getDatabase(new DatabaseConfigBuilder(new File(folder, "database.db")));
+        database.registerTable(PLAYERS);
+        PLAYERS.getRowCache().invalidateAll();
+        for (final String uuid : Arrays.asList("a", "b")) {
+            assertTrue(database.insertColumns(PLAYERS, Arrays.asList("uuid", "kills"), Arrays.asList(uuid, 1)));
+        }
+    }
+
+    @AfterEach
+    void close() {
+        database.close();
+    }
+
+    @Test
+    void testUpdateRowOnlyInvalidatesItsRow() {
+        database.getRow(PLAYERS, "uuid", "a");
+        database.getRow(PLAYERS, "uuid", "b");
+        assertEquals(1, database.updateRow(PLAYERS, "uuid", "a", "UPDATE players SET kills = kills + 1 WHERE uuid = ?", "a"));
+        assertNull(PLAYERS.getRowCache().get("uuid", "a"));
+        assertNotNull(PLAYERS.getRowCache().get("uuid", "b"));
+        assertEquals(2, ((Number) database.getRow(PLAYERS, "uuid", "a").get("kills")).intValue());
+
+        // a raw update may change any row
+        database.update(PLAYERS, "UPDATE players SET kills = kills + 1 WHERE uuid = ?", "b");
+        assertNull(PLAYERS.getRowCache().get("uuid", "a"));
+        assertNull(PLAYERS.getRowCache().get("uuid", "b"));
+    }
+
+    @Test
+    void testPreparedMapperResolvesOncePerStatement() {
+        final AtomicInteger prepares = new AtomicInteger();
+        final RowMapper<String> mapper = RowMapper.prepared(view -> {
+            prepares.incrementAndGet();
+            final int uuid = view.indexOf("uuid");
+            final int kills = view.indexOf("kills");
+            return row -> row.getString(uuid) + row.getInt(kills);
+        });
+        final List<String> rows = database.query("SELECT uuid, kills FROM players ORDER BY uuid", mapper);
+        assertEquals(Arrays.asList("a1", "b1"), rows);
+        assertEquals(1, prepares.get());
+        assertEquals("a1", database.getRow(PLAYERS, "uuid", "a", mapper));
+        assertEquals(2, prepares.get());
+    }
+}
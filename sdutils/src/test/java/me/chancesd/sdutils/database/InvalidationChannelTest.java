@@ -0,0 +1,114 @@
+package me.chancesd.sdutils.database;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class InvalidationChannelTest {
+
+    private static final Table PLAYERS = new Table("players", "uuid VARCHAR(36) NOT NULL PRIMARY KEY, kills INT NOT NULL")
+            .cacheRows(10, 1, TimeUnit.MINUTES);
+    private static final List<String> CHANGE_COLUMNS = Arrays.asList("id", "server", "table_name", "key_column", "key_value", "created");
+
+    @TempDir
+    File folder;
+    private Database database;
+    private final List<InvalidationChannel> channels = new ArrayList<>();
+    private final List<String> received = new ArrayList<>();
+
+    @BeforeAll
+    static void beforeAll() {
+        TestDatabases.setupServer();
+    }
+
+    @BeforeEach
+    void open() {
+        final DatabaseFactory factory = new DatabaseFactory(TestDatabases.plugin(new YamlConfiguration()));
+        database = factory.getDatabase(new DatabaseConfigBuilder(new File(folder, "database.db")));
+        database.registerTable(PLAYERS);
+        PLAYERS.getRowCache().invalidateAll();
+        assertTrue(database.insertColumns(PLAYERS, Arrays.asList("uuid", "kills"), Arrays.asList("a", 0)));
+    }
+
+    @AfterEach
+    void close() {
+        channels.forEach(InvalidationChannel::close);
+        database.close();
+    }
+
+    /**
+     * Channels of two servers share the database, polls only run when the test calls them
+     */
+    private InvalidationChannel channel(final long settleTime) {
+        final InvalidationChannel channel = new InvalidationChannel(database, TimeUnit.HOURS.toMillis(1), settleTime);
+        channel.addListener(PLAYERS, (table, column, value) -> received.add(column + "=" + value));
+        channels.add(channel);
+        return channel;
+    }
+
+    /**
+     * Log a change of another server with a chosen id, like a transaction committing late
+     */
+    private void logChange(final long id, final String value) {
+        assertTrue(database.insertColumns(InvalidationChannel.CHANGES, CHANGE_COLUMNS,
+                Arrays.asList(id, "other", PLAYERS.getName(), "uuid", value, System.currentTimeMillis())));
+    }
+
+    @Test
+    void testAppliesChangesOfOtherServers() {
+        final InvalidationChannel other = channel(0);
+        final InvalidationChannel channel = channel(0);
+        channel.poll();
+        database.getRow(PLAYERS, "uuid", "a");
+        assertNotNull(PLAYERS.getRowCache().get("uuid", "a"));
+
+        other.publish(PLAYERS, "uuid", "a");
+        other.publish(PLAYERS, "uuid", "x".repeat(300));
+        channel.publish(PLAYERS, "uuid", "own");
+        other.poll();
+        received.clear();
+        channel.poll();
+
+        // the key too long for the log invalidates the whole table, our own change is skipped
+        assertEquals(List.of("uuid=a", "null=null"), received);
+        assertNull(PLAYERS.getRowCache().get("uuid", "a"));
+    }
+
+    @Test
+    void testRereadsLateChangesUntilSettled() {
+        final InvalidationChannel channel = channel(TimeUnit.MINUTES.toMillis(1));
+        channel.poll();
+        logChange(5, "five");
+        channel.poll();
+        logChange(3, "three");
+        channel.poll();
+        channel.poll();
+        // the late change is read, the one already applied is not applied again
+        assertEquals(List.of("uuid=five", "uuid=three"), received);
+    }
+
+    @Test
+    void testSettledChangesAreNotReadAgain() {
+        final InvalidationChannel channel = channel(0);
+        channel.poll();
+        logChange(5, "five");
+        channel.poll();
+        channel.poll();
+        // committed after its id settled, it is missed
+        logChange(3, "three");
+        logChange(6, "six");
+        channel.poll();
+        assertEquals(List.of("uuid=five", "uuid=six"), received);
+    }
+}
@@ -0,0 +1,35 @@
+package me.chancesd.sdutils.database;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import me.chancesd.sdutils.database.LogTable.Period;
+
+class LogTableTest {
+
+    @Test
+    void testParseBucket() {
+        final Pattern days = LogTable.bucketPattern("kills", Period.DAY);
+        assertEquals(LocalDate.of(2024, 1, 31), LogTable.parseBucket(days, Period.DAY, "kills_20240131"));
+        assertEquals(LocalDate.of(2024, 1, 31), LogTable.parseBucket(days, Period.DAY, "KILLS_20240131"));
+        assertNull(LogTable.parseBucket(days, Period.DAY, "kills_2024013"));
+        assertNull(LogTable.parseBucket(days, Period.DAY, "kills_20241331"));
+        assertNull(LogTable.parseBucket(days, Period.DAY, "deaths_20240131"));
+        assertNull(LogTable.parseBucket(days, Period.DAY, "kills"));
+
+        final Pattern months = LogTable.bucketPattern("kills", Period.MONTH);
+        assertEquals(LocalDate.of(2024, 1, 1), LogTable.parseBucket(months, Period.MONTH, "kills_202401"));
+        assertNull(LogTable.parseBucket(months, Period.MONTH, "kills_20240131"));
+    }
+
+    @Test
+    void testRetentionCutoff() {
+        assertEquals(LocalDate.of(2024, 2, 28), LogTable.oldestKept(Period.DAY, 7, LocalDate.of(2024, 3, 5)));
+        assertEquals(LocalDate.of(2024, 3, 5), LogTable.oldestKept(Period.DAY, 1, LocalDate.of(2024, 3, 5)));
+        assertEquals(LocalDate.of(2024, 1, 1), LogTable.oldestKept(Period.MONTH, 3, LocalDate.of(2024, 3, 15)));
+    }
+}
@@ -0,0 +1,135 @@
+package me.chancesd.sdutils.database;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MemoryDatabaseTest {
+
+    private static final Table PLAYERS = new Table("players", "uuid VARCHAR(36) NOT NULL PRIMARY KEY, kills INT NOT NULL");
+
+    @TempDir
+    File folder;
+
+    @BeforeAll
+    static void beforeAll() {
+        TestDatabases.setupServer();
+    }
+
+    @Test
+    void testSnapshotRoundTrip() {
+        final File snapshot = new File(folder, "snapshot.db");
+        final DatabaseFactory factory = new DatabaseFactory(TestDatabases.plugin(new YamlConfiguration()));
+
+        final Database database = factory.getDatabase(new DatabaseConfigBuilder(snapshot).memory(snapshot));
+        try {
+            assertTrue(database.isInMemory());
+            database.registerTable(PLAYERS);
+            assertTrue(database.insertColumns(PLAYERS, Arrays.asList("uuid", "kills"), Arrays.asList("a", 3)));
+            // only written by the flush on close, the snapshot has to include it
+            database.enableWriteBehind(100, 1, TimeUnit.HOURS).queueInsert(PLAYERS, Arrays.asList("uuid", "kills"), Arrays.asList("b", 5));
+        } finally {
+            database.close();
+        }
+        assertTrue(snapshot.exists());
+
+        final Database reopened = factory.getDatabase(new DatabaseConfigBuilder(snapshot).memory(snapshot));
+        try {
+            reopened.registerTable(PLAYERS);
+            assertEquals(2, reopened.executeCountQuery(PLAYERS, ""));
+            assertEquals(3, ((Number) reopened.getValue(PLAYERS, "uuid", "kills", "a")).intValue());
+            assertEquals(5, ((Number) reopened.getValue(PLAYERS, "uuid", "kills", "b")).intValue());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void testWritesWhileReading() {
+        final DatabaseFactory factory = new DatabaseFactory(TestDatabases.plugin(new YamlConfiguration()));
+        final Database database = factory.getDatabase(new DatabaseConfigBuilder(new File(folder, "unused.db")).memory(null).connectionTimeout(1000));
+        try {
+            database.registerTable(PLAYERS);
+            assertTrue(database.insertColumns(PLAYERS, Arrays.asList("uuid", "kills"), Arrays.asList("a", 1)));
+            assertTrue(database.insertColumns(PLAYERS, Arrays.asList("uuid", "kills"), Arrays.asList("b", 2)));
+            // the consumer holds the only connection, its writes have to reuse it
+            assertTrue(database.forEachRow(PLAYERS, 10, row -> database.update(PLAYERS, "uuid", "kills", row.getString("uuid"), row.getInt("kills") + 10)));
+            assertEquals(11, ((Number) database.getValue(PLAYERS, "uuid", "kills", "a")).intValue());
+            assertEquals(12, ((Number) database.getValue(PLAYERS, "uuid", "kills", "b")).intValue());
+        } finally {
+            database.close();
+        }
+    }
+
+    @Test
+    void testConverter() {
+        final File snapshot = new File(folder, "snapshot.db");
+        final YamlConfiguration defaults = new YamlConfiguration();
+        defaults.set("Database Version", 2);
+        final YamlConfiguration config = new YamlConfiguration();
+        config.setDefaults(defaults);
+        config.set("Database Version", 1);
+        final DatabaseFactory factory = new DatabaseFactory(TestDatabases.plugin(config));
+        final Table oldTable = new Table("old_players", "uuid VARCHAR(36) NOT NULL PRIMARY KEY, deaths INT NOT NULL");
+
+        final Database seed = factory.getDatabase(new DatabaseConfigBuilder(snapshot).memory(snapshot));
+        try {
+            seed.registerTable(oldTable);
+            assertTrue(seed.insertColumns(oldTable, Arrays.asList("uuid", "deaths"), Arrays.asList("a", 4)));
+        } finally {
+            seed.close();
+        }
+
+        factory.registerConverter(new Converter() {
+            @Override
+            public void convertAll(final Database database, final ResultSet results) throws SQLException {
+                final List<Collection<Object>> rows = new ArrayList<>();
+                while (results.next()) {
+                    rows.add(Arrays.asList(results.getString("uuid"), results.getInt("deaths") * 2));
+                }
+                // runs while the old table is read on the only connection
+                database.registerTable(PLAYERS);
+                if (!database.insertColumnsBatch(PLAYERS, Arrays.asList("uuid", "kills"), rows).isSuccess())
+                    throw new SQLException("Failed to insert converted rows");
+            }
+
+            @Override
+            public void onComplete() {
+            }
+
+            @Override
+            public Table getOldTable() {
+                return oldTable;
+            }
+
+            @Override
+            public Table getNewTable() {
+                return PLAYERS;
+            }
+
+            @Override
+            public int getMinimumDatabaseVersion() {
+                return 2;
+            }
+        });
+        final Database converted = factory.getDatabase(new DatabaseConfigBuilder(snapshot).memory(snapshot).connectionTimeout(1000));
+        try {
+            assertEquals(2, config.getInt("Database Version"));
+            assertEquals(8, ((Number) converted.getValue(PLAYERS, "uuid", "kills", "a")).intValue());
+        } finally {
+            converted.close();
+        }
+    }
+}
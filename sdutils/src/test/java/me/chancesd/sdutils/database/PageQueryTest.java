@@ -0,0 +1,50 @@
+package me.chancesd.sdutils.database;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageQueryTest {
+
+    private final PageQuery query = PageQuery.of(new Table("players", "uuid VARCHAR(36), kills INT"), "kills")
+            .tieBreaker("uuid").descending();
+
+    @Test
+    void testSeeksAfterCursor() {
+        assertEquals("SELECT * FROM players ORDER BY kills DESC, uuid DESC LIMIT ?", query.firstPage());
+        assertEquals("SELECT * FROM players WHERE (kills < ? OR (kills = ? AND uuid < ?)) ORDER BY kills DESC, uuid DESC LIMIT ?",
+                query.nextPage());
+    }
+
+    @Test
+    void testCursorRoundTrip() {
+        final String cursor = PageQuery.encode(42, "a-uuid");
+        assertArrayEquals(new Object[] { 42L, 42L, "a-uuid" }, query.getCursorParameters(cursor));
+        assertThrows(IllegalArgumentException.class, () -> query.getCursorParameters(PageQuery.encode(1)));
+        assertThrows(IllegalArgumentException.class, () -> query.getCursorParameters("not a cursor"));
+    }
+
+    @Test
+    void testEncodesDecimalAndDateValues() {
+        final Timestamp timestamp = new Timestamp(1_700_000_000_123L);
+        timestamp.setNanos(123_456_789);
+        final Object[] values = { new BigDecimal("12345678901234567890.0100"), new BigInteger("18446744073709551615"), timestamp,
+                new Date(1_700_000_000_000L), LocalDateTime.of(2024, 2, 29, 13, 5, 7, 1000) };
+        final Object[] decoded = PageQuery.decode(PageQuery.encode(values));
+        assertArrayEquals(values, decoded);
+        assertEquals(123_456_789, ((Timestamp) decoded[2]).getNanos());
+        assertEquals(new BigDecimal("12345678901234567890.0100").scale(), ((BigDecimal) decoded[0]).scale());
+    }
+
+    @Test
+    void testRejectsUnsupportedCursorValues() {
+        assertThrows(IllegalArgumentException.class, () -> PageQuery.encode(UUID.randomUUID()));
+        assertThrows(IllegalArgumentException.class, () -> PageQuery.encode("a".repeat(70000)));
+    }
+}
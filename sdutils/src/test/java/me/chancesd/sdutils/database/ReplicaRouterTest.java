@@ -0,0 +1,80 @@
+package me.chancesd.sdutils.database;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import me.chancesd.sdutils.database.DatabaseConfigBuilder.ReplicaSelection;
+
+class ReplicaRouterTest {
+
+    private static HikariDataSource replica(final int active, final int waiting) {
+        final HikariPoolMXBean bean = mock(HikariPoolMXBean.class);
+        when(bean.getActiveConnections()).thenReturn(active);
+        when(bean.getThreadsAwaitingConnection()).thenReturn(waiting);
+        final HikariDataSource pool = mock(HikariDataSource.class);
+        when(pool.getHikariPoolMXBean()).thenReturn(bean);
+        return pool;
+    }
+
+    @Test
+    void testRoundRobin() {
+        final HikariDataSource first = replica(0, 0);
+        final HikariDataSource second = replica(0, 0);
+        final ReplicaRouter router = new ReplicaRouter(List.of(first, second), ReplicaSelection.ROUND_ROBIN, 0);
+        assertSame(first, router.select());
+        assertSame(second, router.select());
+        assertSame(first, router.select());
+    }
+
+    @Test
+    void testLeastBusy() {
+        final HikariDataSource busy = replica(3, 1);
+        final HikariDataSource idle = replica(1, 0);
+        final HikariDataSource waiting = replica(0, 2);
+        final ReplicaRouter router = new ReplicaRouter(List.of(busy, idle, waiting), ReplicaSelection.LEAST_BUSY, 0);
+        assertSame(idle, router.select());
+        assertSame(idle, router.select());
+    }
+
+    @Test
+    void testPrimaryWithoutReplicas() {
+        final ReplicaRouter router = new ReplicaRouter(Collections.emptyList(), ReplicaSelection.ROUND_ROBIN, 0);
+        router.recordWrite();
+        assertNull(router.select());
+    }
+
+    @Test
+    void testReadYourWritesWindow() {
+        final HikariDataSource replica = replica(0, 0);
+        final ReplicaRouter router = new ReplicaRouter(List.of(replica), ReplicaSelection.ROUND_ROBIN, 60_000);
+        // no write yet
+        assertSame(replica, router.select());
+        router.recordWrite();
+        assertNull(router.select());
+
+        final ReplicaRouter noWindow = new ReplicaRouter(List.of(replica), ReplicaSelection.ROUND_ROBIN, 0);
+        noWindow.recordWrite();
+        assertSame(replica, noWindow.select());
+    }
+
+    @Test
+    void testReadFromPrimary() {
+        final HikariDataSource replica = replica(0, 0);
+        final ReplicaRouter router = new ReplicaRouter(List.of(replica), ReplicaSelection.ROUND_ROBIN, 0);
+        final HikariDataSource nested = router.readFromPrimary(() -> {
+            assertNull(router.select());
+            return router.readFromPrimary(router::select);
+        });
+        assertNull(nested);
+        // cleared once the outermost work returns
+        assertSame(replica, router.select());
+    }
+}
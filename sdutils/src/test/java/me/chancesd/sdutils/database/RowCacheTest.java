@@ -0,0 +1,67 @@
+package me.chancesd.sdutils.database;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowCacheTest {
+
+    private static Map<String, Object> row(final Object id, final String name) {
+        final Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("name", name);
+        return row;
+    }
+
+    @Test
+    void testHitAndMiss() {
+        final RowCache cache = new RowCache(10, 1, TimeUnit.MINUTES);
+        assertNull(cache.get("id", 1));
+        cache.put("id", 1, row(1, "a"), cache.stamp());
+        assertEquals("a", cache.get("ID", 1L).get("name"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void testEviction() {
+        final RowCache cache = new RowCache(2, 1, TimeUnit.MINUTES);
+        cache.put("id", 1, row(1, "a"), cache.stamp());
+        cache.put("id", 2, row(2, "b"), cache.stamp());
+        cache.get("id", 1);
+        cache.put("id", 3, row(3, "c"), cache.stamp());
+        assertNotNull(cache.get("id", 1));
+        assertNull(cache.get("id", 2));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void testExpiry() {
+        final RowCache cache = new RowCache(10, 0, TimeUnit.MILLISECONDS);
+        cache.put("id", 1, row(1, "a"), cache.stamp());
+        assertNull(cache.get("id", 1));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void testInvalidateOtherIndex() {
+        final RowCache cache = new RowCache(10, 1, TimeUnit.MINUTES);
+        cache.put("name", "a", row(1, "a"), cache.stamp());
+        cache.put("id", 2, row(2, "b"), cache.stamp());
+        cache.invalidate("id", 1);
+        assertNull(cache.get("name", "a"));
+        assertNotNull(cache.get("id", 2));
+    }
+
+    @Test
+    void testStaleStampIgnored() {
+        final RowCache cache = new RowCache(10, 1, TimeUnit.MINUTES);
+        final long stamp = cache.stamp();
+        cache.invalidate("id", 1);
+        cache.put("id", 1, row(1, "a"), stamp);
+        assertNull(cache.get("id", 1));
+    }
+}
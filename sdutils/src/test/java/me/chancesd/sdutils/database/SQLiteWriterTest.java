@@ -0,0 +1,148 @@
+package me.chancesd.sdutils.database;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteDataSource;
+
+class SQLiteWriterTest {
+
+    @TempDir
+    File folder;
+    private SQLiteDataSource dataSource;
+    private SQLiteWriter writer;
+
+    @BeforeAll
+    static void beforeAll() {
+        TestDatabases.setupServer();
+    }
+
+    @BeforeEach
+    void open() throws SQLException {
+        dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + new File(folder, "database.db").getAbsolutePath());
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE players (uuid VARCHAR(36) NOT NULL PRIMARY KEY)");
+        }
+        writer = new SQLiteWriter(dataSource, "SQLiteWriterTest");
+    }
+
+    @AfterEach
+    void close() {
+        writer.close();
+    }
+
+    private static int insert(final Connection connection, final String uuid) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO players (uuid) VALUES (?)")) {
+            ps.setString(1, uuid);
+            return ps.executeUpdate();
+        }
+    }
+
+    private List<String> players() throws SQLException {
+        final List<String> players = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+                ResultSet result = statement.executeQuery("SELECT uuid FROM players ORDER BY uuid")) {
+            while (result.next()) {
+                players.add(result.getString(1));
+            }
+        }
+        return players;
+    }
+
+    /**
+     * Blocks the writer thread until the latch is released, so the writes queued meanwhile form one group
+     */
+    private CompletableFuture<Connection> block(final CountDownLatch started, final CountDownLatch release) {
+        return writer.submit(connection -> {
+            started.countDown();
+            try {
+                assertTrue(release.await(10, TimeUnit.SECONDS));
+            } catch (final InterruptedException e) {
+                throw new SQLException(e);
+            }
+            return connection;
+        });
+    }
+
+    @Test
+    void testGroupsQueuedWrites() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CompletableFuture<Connection> blocked = block(started, release);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        final List<CompletableFuture<Connection>> grouped = new ArrayList<>();
+        for (final String uuid : new String[] { "a", "b", "c" }) {
+            grouped.add(writer.submit(connection -> {
+                insert(connection, uuid);
+                return connection;
+            }));
+        }
+        assertEquals(3, writer.getQueueSize());
+        release.countDown();
+
+        final Connection groupConnection = grouped.get(0).get(10, TimeUnit.SECONDS);
+        for (final CompletableFuture<Connection> future : grouped) {
+            assertSame(groupConnection, future.get(10, TimeUnit.SECONDS));
+        }
+        assertNotSame(blocked.get(), groupConnection);
+        assertEquals(List.of("a", "b", "c"), players());
+    }
+
+    @Test
+    void testRollsBackFailedWriteOnly() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        block(started, release);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        final CompletableFuture<Integer> first = writer.submit(connection -> insert(connection, "a"));
+        final CompletableFuture<Integer> failing = writer.submit(connection -> {
+            insert(connection, "b");
+            // duplicate key
+            return insert(connection, "a");
+        });
+        final CompletableFuture<Integer> last = writer.submit(connection -> insert(connection, "c"));
+        release.countDown();
+
+        assertEquals(1, first.get(10, TimeUnit.SECONDS));
+        assertEquals(1, last.get(10, TimeUnit.SECONDS));
+        final ExecutionException error = assertThrows(ExecutionException.class, () -> failing.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(SQLException.class, error.getCause());
+        assertEquals(List.of("a", "c"), players());
+    }
+
+    @Test
+    void testExecuteReportsFailure() throws Exception {
+        assertEquals(1, writer.<Integer> execute(connection -> insert(connection, "a")));
+        assertThrows(SQLException.class, () -> writer.execute(connection -> insert(connection, "a")));
+        // nested writes run in the current group
+        assertEquals(1, writer.<Integer> execute(connection -> writer.execute(c -> insert(c, "b"))));
+        assertEquals(List.of("a", "b"), players());
+    }
+
+    @Test
+    void testRejectsWritesAfterClose() throws Exception {
+        final CompletableFuture<Integer> queued = writer.submit(connection -> insert(connection, "a"));
+        writer.close();
+        assertEquals(1, queued.get(10, TimeUnit.SECONDS));
+        assertThrows(SQLException.class, () -> writer.execute(connection -> insert(connection, "b")));
+        assertEquals(List.of("a"), players());
+    }
+}
@@ -0,0 +1,54 @@
+package me.chancesd.sdutils.database;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import me.chancesd.sdutils.database.DatabaseConfigBuilder.DatabaseType;
+
+class TableTest {
+
+    private static Table players() {
+        return new Table("players",
+                Column.of("id", ColumnType.INTEGER).autoIncrement(),
+                Column.of("uuid", ColumnType.VARCHAR).length(36).notNull(),
+                Column.of("kills", ColumnType.INTEGER).notNull().defaultValue("0"));
+    }
+
+    @Test
+    void testUsagePerDialect() {
+        final Table table = players();
+        assertEquals(" (id INTEGER PRIMARY KEY AUTOINCREMENT, uuid VARCHAR(36) NOT NULL, kills INTEGER NOT NULL DEFAULT 0)",
+                table.getUsage(DatabaseType.SQLITE));
+        assertEquals(" (id INT NOT NULL AUTO_INCREMENT, uuid VARCHAR(36) NOT NULL, kills INT NOT NULL DEFAULT 0, PRIMARY KEY (id))",
+                table.getUsage(DatabaseType.MYSQL));
+    }
+
+    @Test
+    void testCompositePrimaryKey() {
+        final Table table = new Table("kills",
+                Column.of("killer", ColumnType.VARCHAR).length(36).primaryKey(),
+                Column.of("victim", ColumnType.VARCHAR).length(36).primaryKey());
+        assertEquals(" (killer VARCHAR(36) NOT NULL, victim VARCHAR(36) NOT NULL, PRIMARY KEY (killer, victim))",
+                table.getUsage(DatabaseType.SQLITE));
+    }
+
+    @Test
+    void testValues() {
+        assertEquals("(id,uuid,kills)", players().getValues());
+        assertEquals("(uuid,kills)", new Table("players", "uuid CHAR(36) NOT NULL, kills INT").getValues());
+        assertEquals(ColumnType.VARCHAR, players().getColumn("UUID").getType());
+        assertNull(players().getColumn("deaths"));
+    }
+
+    @Test
+    void testIndexNameLength() {
+        assertEquals("idx_players_uuid", players().index("uuid").getIndexes().get(0).getName());
+        final Table table = new Table("player_statistics_by_season", "season INT, player_uuid CHAR(36), statistic_name VARCHAR(64)")
+                .index("season", "player_uuid", "statistic_name");
+        final String name = table.getIndexes().get(0).getName();
+        assertEquals(64, name.length());
+        assertTrue(name.startsWith("idx_player_statistics_by_season_season_player_uuid_"));
+        assertNotEquals(name, new Table("player_statistics_by_season", "season INT, player_uuid CHAR(36), statistic_names VARCHAR(64)")
+                .index("season", "player_uuid", "statistic_names").getIndexes().get(0).getName());
+    }
+}
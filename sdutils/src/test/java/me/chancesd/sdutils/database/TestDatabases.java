@@ -0,0 +1,42 @@
+package me.chancesd.sdutils.database;
+
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import me.chancesd.sdutils.scheduler.ScheduleUtils;
+import me.chancesd.sdutils.utils.Log;
+
+/**
+ * Opens real SQLite databases for a mocked plugin
+ */
+final class TestDatabases {
+
+    private TestDatabases() {
+    }
+
+    static void setupServer() {
+        if (Bukkit.getServer() == null) {
+            Bukkit.setServer(mock(Server.class, RETURNS_MOCKS));
+        }
+        Log.setup(Logger.getLogger("SDUtilsTest"), "[SDUtilsTest]");
+        ScheduleUtils.setExecutor(Executors.newSingleThreadScheduledExecutor());
+    }
+
+    /**
+     * @param config Plugin config, its defaults hold the current database version
+     */
+    static JavaPlugin plugin(final YamlConfiguration config) {
+        final JavaPlugin plugin = mock(JavaPlugin.class);
+        when(plugin.getName()).thenReturn("SDUtilsTest");
+        when(plugin.getConfig()).thenReturn(config);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("SDUtilsTest"));
+        return plugin;
+    }
+}
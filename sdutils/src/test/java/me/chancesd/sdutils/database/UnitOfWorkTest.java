@@ -0,0 +1,114 @@
+package me.chancesd.sdutils.database;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class UnitOfWorkTest {
+
+    private static final Table ACCOUNTS = new Table("accounts", "uuid VARCHAR(36) NOT NULL PRIMARY KEY, balance INT NOT NULL")
+            .cacheRows(10, 1, TimeUnit.MINUTES);
+    private static final List<String> COLUMNS = Arrays.asList("uuid", "balance");
+    private static final List<String> BALANCE = Arrays.asList("balance");
+
+    @TempDir
+    File folder;
+    private Database database;
+
+    @BeforeAll
+    static void beforeAll() {
+        TestDatabases.setupServer();
+    }
+
+    @BeforeEach
+    void open() {
+        final DatabaseFactory factory = new DatabaseFactory(TestDatabases.plugin(new YamlConfiguration()));
+        database = factory.getDatabase(new DatabaseConfigBuilder(new File(folder, "database.db")));
+        database.registerTable(ACCOUNTS);
+        ACCOUNTS.getRowCache().invalidateAll();
+        assertTrue(database.insertColumns(ACCOUNTS, COLUMNS, Arrays.asList("a", 100)));
+    }
+
+    @AfterEach
+    void close() {
+        database.close();
+    }
+
+    private int balance(final String uuid) {
+        return ((Number) database.getValue(ACCOUNTS, "uuid", "balance", uuid)).intValue();
+    }
+
+    @Test
+    void testCommitsAndInvalidatesCache() {
+        database.getRow(ACCOUNTS, "uuid", "a");
+        assertNotNull(ACCOUNTS.getRowCache().get("uuid", "a"));
+        final Integer read = database.transaction(unit -> {
+            unit.updateValues(ACCOUNTS, "uuid", "a", BALANCE, Arrays.asList(60));
+            unit.insertColumns(ACCOUNTS, COLUMNS, Arrays.asList("b", 40));
+            // reads see the writes of the same unit
+            return ((Number) unit.getValue(ACCOUNTS, "uuid", "balance", "a")).intValue();
+        });
+        assertEquals(60, read);
+        assertNull(ACCOUNTS.getRowCache().get("uuid", "a"));
+        assertEquals(60, balance("a"));
+        assertEquals(40, balance("b"));
+    }
+
+    @Test
+    void testRollbackDiscardsTheUnit() {
+        database.getRow(ACCOUNTS, "uuid", "a");
+        final Boolean result = database.transaction(unit -> {
+            unit.updateValues(ACCOUNTS, "uuid", "a", BALANCE, Arrays.asList(0));
+            unit.rollback();
+            return true;
+        });
+        assertNull(result);
+        assertEquals(100, balance("a"));
+        // nothing changed, so the cached row stays
+        assertNotNull(ACCOUNTS.getRowCache().get("uuid", "a"));
+    }
+
+    @Test
+    void testFailureRollsBackEarlierWrites() {
+        final Boolean result = database.transaction(unit -> {
+            unit.updateValues(ACCOUNTS, "uuid", "a", BALANCE, Arrays.asList(0));
+            // duplicate key
+            unit.insertColumns(ACCOUNTS, COLUMNS, Arrays.asList("a", 1));
+            return true;
+        });
+        assertNull(result);
+        assertEquals(100, balance("a"));
+    }
+
+    @Test
+    void testRollbackToSavepoint() {
+        final Boolean result = database.transaction(unit -> {
+            unit.updateValues(ACCOUNTS, "uuid", "a", BALANCE, Arrays.asList(50));
+            final Savepoint savepoint = unit.savepoint();
+            unit.insertColumns(ACCOUNTS, COLUMNS, Arrays.asList("b", 50));
+            try {
+                unit.insertColumns(ACCOUNTS, COLUMNS, Arrays.asList("a", 1));
+                fail("Duplicate key was inserted");
+            } catch (final SQLException e) {
+                unit.rollback(savepoint);
+            }
+            assertFalse(unit.contains(ACCOUNTS, "uuid", "b"));
+            return true;
+        });
+        assertEquals(Boolean.TRUE, result);
+        assertEquals(50, balance("a"));
+        assertFalse(database.contains(ACCOUNTS, "uuid", "b"));
+    }
+}
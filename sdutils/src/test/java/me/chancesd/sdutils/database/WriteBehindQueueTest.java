@@ -0,0 +1,126 @@
+package me.chancesd.sdutils.database;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WriteBehindQueueTest {
+
+    private static final Table PLAYERS = new Table("players", "uuid VARCHAR(36) NOT NULL PRIMARY KEY, kills INT NOT NULL, deaths INT NOT NULL");
+    private static final Table KILLS = new Table("kills", "killer VARCHAR(36) NOT NULL, victim VARCHAR(36) NOT NULL");
+    private static final Table SCORES = new Table("scores", "uuid VARCHAR(36) NOT NULL PRIMARY KEY, kills INT NOT NULL, deaths INT NOT NULL");
+    private static final List<String> COLUMNS = Arrays.asList("uuid", "kills", "deaths");
+
+    @TempDir
+    File folder;
+    private Database database;
+    private WriteBehindQueue queue;
+
+    @BeforeAll
+    static void beforeAll() {
+        TestDatabases.setupServer();
+    }
+
+    @BeforeEach
+    void open() {
+        database = openDatabase();
+        database.registerTable(PLAYERS);
+        assertTrue(database.insertColumns(PLAYERS, COLUMNS, Arrays.asList("a", 0, 0)));
+        // only flushed by the tests
+        queue = database.enableWriteBehind(1000, 1, TimeUnit.HOURS);
+    }
+
+    @AfterEach
+    void close() {
+        database.close();
+    }
+
+    private Database openDatabase() {
+        final DatabaseFactory factory = new DatabaseFactory(TestDatabases.plugin(new YamlConfiguration()));
+        return factory.getDatabase(new DatabaseConfigBuilder(new File(folder, "database.db")));
+    }
+
+    private int value(final String column) {
+        return ((Number) database.getValue(PLAYERS, "uuid", column, "a")).intValue();
+    }
+
+    @Test
+    void testCoalescesUpdatesPerRow() {
+        queue.queueUpdate(PLAYERS, "uuid", "a", "kills", 1);
+        queue.queueUpdate(PLAYERS, "uuid", "a", Arrays.asList("kills", "deaths"), Arrays.asList(2, 5));
+        queue.queueUpdate(PLAYERS, "uuid", "a", "kills", 3);
+        assertEquals(1, queue.getPendingCount());
+        assertEquals(0, value("kills"));
+
+        queue.flush();
+        assertEquals(0, queue.getPendingCount());
+        assertEquals(3, value("kills"));
+        assertEquals(5, value("deaths"));
+    }
+
+    @Test
+    void testRetriesFailedRowsOnce() {
+        queue.queueInsert(KILLS, Arrays.asList("killer", "victim"), Arrays.asList("a", "b"));
+        queue.flush();
+        // the table does not exist yet, so the row is queued again
+        assertEquals(1, queue.getPendingCount());
+
+        database.registerTable(KILLS);
+        queue.flush();
+        assertEquals(0, queue.getPendingCount());
+        assertTrue(database.contains(KILLS, "killer", "a"));
+
+        queue.queueInsert(PLAYERS, COLUMNS, Arrays.asList("a", 1, 1));
+        queue.flush();
+        assertEquals(1, queue.getPendingCount());
+        queue.flush();
+        // the duplicate key failed again and was dropped
+        assertEquals(0, queue.getPendingCount());
+        assertEquals(0, value("kills"));
+    }
+
+    @Test
+    void testNewerUpdatesWinOverRetriedValues() {
+        queue.queueUpdate(SCORES, "uuid", "a", Arrays.asList("kills", "deaths"), Arrays.asList(1, 1));
+        queue.flush();
+        assertEquals(1, queue.getPendingCount());
+        queue.queueUpdate(SCORES, "uuid", "a", "kills", 7);
+
+        database.registerTable(SCORES);
+        assertTrue(database.insertColumns(SCORES, COLUMNS, Arrays.asList("a", 0, 0)));
+        queue.flush();
+        assertEquals(0, queue.getPendingCount());
+        assertEquals(7, ((Number) database.getValue(SCORES, "uuid", "kills", "a")).intValue());
+        assertEquals(1, ((Number) database.getValue(SCORES, "uuid", "deaths", "a")).intValue());
+    }
+
+    @Test
+    void testFlushesOnClose() {
+        queue.queueUpdate(PLAYERS, "uuid", "a", "kills", 4);
+        database.close();
+
+        database = openDatabase();
+        database.registerTable(PLAYERS);
+        assertEquals(4, value("kills"));
+    }
+
+    @Test
+    void testWritesRightAwayAfterClose() {
+        queue.close();
+        queue.queueUpdate(PLAYERS, "uuid", "a", "kills", 6);
+        queue.queueInsert(PLAYERS, COLUMNS, Arrays.asList("b", 1, 1));
+        assertEquals(0, queue.getPendingCount());
+        assertEquals(6, value("kills"));
+        assertTrue(database.contains(PLAYERS, "uuid", "b"));
+    }
+}
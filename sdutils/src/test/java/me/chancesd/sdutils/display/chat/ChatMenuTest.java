@@ -32,7 +32,9 @@ class ChatMenuTest {
 
 	@BeforeAll
 	static void beforeAll() {
-		Bukkit.setServer(Mockito.mock(Server.class, RETURNS_MOCKS));
+		if (Bukkit.getServer() == null) {
+			Bukkit.setServer(Mockito.mock(Server.class, RETURNS_MOCKS));
+		}
 	}
 
     @BeforeEach